@@ -0,0 +1,24 @@
+package com.github.hoqhuuep.islandcraft.api;
+
+/**
+ * A BiomeDistribution which can also fill a whole chunk at once, which can be
+ * much cheaper than calling biomeAt for each of its 256 blocks.
+ */
+public interface ChunkBiomeDistribution extends BiomeDistribution {
+    /**
+     * Fills result with the biomes to be generated in the chunk at the given
+     * location in a world with the given random seed. The result must be
+     * equivalent to that of calling biomeAt for each block in the chunk.
+     * 
+     * @param x
+     *            the x-coordinate of the chunk (measured in blocks)
+     * @param z
+     *            the z-coordinate of the chunk (measured in blocks)
+     * @param worldSeed
+     *            the random seed of the world to get the biomes from
+     * @param result
+     *            an ICBiome[256] to be filled such that each element is at
+     *            index [x + z * 16]
+     */
+    void biomeChunk(int x, int z, long worldSeed, ICBiome[] result);
+}
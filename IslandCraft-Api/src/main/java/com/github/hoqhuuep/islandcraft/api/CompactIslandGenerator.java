@@ -0,0 +1,32 @@
+package com.github.hoqhuuep.islandcraft.api;
+
+/**
+ * An IslandGenerator which can also produce its output as a byte array of
+ * biome ordinals, which is 4-8 times smaller than an ICBiome[] and avoids
+ * converting back and forth when the island is cached.
+ */
+public interface CompactIslandGenerator extends IslandGenerator {
+    /**
+     * Value used in the result of generateCompact where generate would have
+     * returned null, i.e. where the biome should be left to the world's
+     * BiomeDistribution.
+     */
+    byte NO_BIOME = -1;
+
+    /**
+     * Returns an array of biome ordinals for the whole island with the given
+     * dimensions and random seed. The result must be equivalent to that of
+     * generate with the same arguments.
+     * 
+     * @param xSize
+     *            the width of the island (measured in blocks)
+     * @param zSize
+     *            the length of the island (measured in blocks)
+     * @param islandSeed
+     *            the random seed of the island
+     * @return a byte[xSize * zSize] containing the ICBiome ordinals for the
+     *         whole island such that each element is at index [x + z * xSize],
+     *         or NO_BIOME where there is no biome
+     */
+    byte[] generateCompact(int xSize, int zSize, long islandSeed);
+}
@@ -0,0 +1,158 @@
+package com.github.hoqhuuep.islandcraft.api;
+
+/**
+ * Records which biomes are present on an island, both for the island as a
+ * whole and for each 16x16 tile of it, so that questions such as "is there any
+ * desert here?" can be answered without looking at every block.
+ *
+ * Sets of biomes are represented as bit masks with bit (1L << ordinal) set for
+ * each ICBiome present, see mask(ICBiome).
+ */
+public final class ICBiomeSummary {
+    /**
+     * Size of each tile (measured in blocks).
+     */
+    public static final int TILE_SIZE = 16;
+
+    /**
+     * Bit set in a mask where some blocks have no biome, i.e. where the biome
+     * is left to the world's ocean BiomeDistribution.
+     */
+    public static final long NO_BIOME = 1L << 63;
+
+    /**
+     * Value returned by getTileOrdinal for tiles containing more than one
+     * biome.
+     */
+    public static final byte MIXED = -2;
+
+    static {
+        // Every biome needs its own bit below NO_BIOME
+        if (ICBiome.values().length > 63) {
+            throw new IllegalStateException("ICBiomeSummary masks only have room for 63 biomes, not " + ICBiome.values().length);
+        }
+    }
+
+    private final int xTiles;
+    private final int zTiles;
+    private final long[] tiles;
+    private final long biomes;
+
+    /**
+     * Creates an immutable ICBiomeSummary from the output of
+     * CompactIslandGenerator.generateCompact.
+     *
+     * @param xSize
+     *            the width of the island (measured in blocks)
+     * @param zSize
+     *            the length of the island (measured in blocks)
+     * @param ordinals
+     *            a byte[xSize * zSize] containing the ICBiome ordinals for the
+     *            whole island such that each element is at index
+     *            [x + z * xSize], or CompactIslandGenerator.NO_BIOME where
+     *            there is no biome
+     */
+    public ICBiomeSummary(final int xSize, final int zSize, final byte[] ordinals) {
+        xTiles = (xSize + TILE_SIZE - 1) / TILE_SIZE;
+        zTiles = (zSize + TILE_SIZE - 1) / TILE_SIZE;
+        tiles = new long[xTiles * zTiles];
+        for (int z = 0; z < zSize; ++z) {
+            final int tileOffset = (z / TILE_SIZE) * xTiles;
+            final int offset = z * xSize;
+            for (int x = 0; x < xSize; ++x) {
+                tiles[tileOffset + x / TILE_SIZE] |= maskOrdinal(ordinals[offset + x]);
+            }
+        }
+        long all = 0;
+        for (final long tile : tiles) {
+            all |= tile;
+        }
+        biomes = all;
+    }
+
+    /**
+     * Returns the mask of all biomes present on the island.
+     */
+    public long getBiomes() {
+        return biomes;
+    }
+
+    /**
+     * Returns true if the given biome is present anywhere on the island.
+     */
+    public boolean contains(final ICBiome biome) {
+        return (biomes & mask(biome)) != 0;
+    }
+
+    /**
+     * Returns the number of tiles along the x-axis.
+     */
+    public int getXTiles() {
+        return xTiles;
+    }
+
+    /**
+     * Returns the number of tiles along the z-axis.
+     */
+    public int getZTiles() {
+        return zTiles;
+    }
+
+    /**
+     * Returns the mask of biomes present in the given tile.
+     *
+     * @param tileX
+     *            x-coordinate of the tile relative to the island (measured in
+     *            tiles)
+     * @param tileZ
+     *            z-coordinate of the tile relative to the island (measured in
+     *            tiles)
+     * @return the mask of biomes present in the tile
+     */
+    public long getTile(final int tileX, final int tileZ) {
+        return tiles[tileX + tileZ * xTiles];
+    }
+
+    /**
+     * Classifies the given tile by whether it is entirely one biome. Tiles
+     * line up with chunks, since islands are made of whole chunks.
+     * 
+     * @param tileX
+     *            x-coordinate of the tile relative to the island (measured in
+     *            tiles)
+     * @param tileZ
+     *            z-coordinate of the tile relative to the island (measured in
+     *            tiles)
+     * @return the ICBiome ordinal of every block in the tile,
+     *         CompactIslandGenerator.NO_BIOME if no block in the tile has a
+     *         biome, or MIXED otherwise
+     */
+    public byte getTileOrdinal(final int tileX, final int tileZ) {
+        final long tile = tiles[tileX + tileZ * xTiles];
+        if (Long.bitCount(tile) != 1) {
+            return MIXED;
+        }
+        if (tile == NO_BIOME) {
+            return CompactIslandGenerator.NO_BIOME;
+        }
+        return (byte) Long.numberOfTrailingZeros(tile);
+    }
+
+    /**
+     * Returns the mask containing only the given biome.
+     */
+    public static long mask(final ICBiome biome) {
+        return 1L << biome.ordinal();
+    }
+
+    /**
+     * Returns the mask containing only the given ICBiome ordinal, or NO_BIOME
+     * for CompactIslandGenerator.NO_BIOME.
+     */
+    public static long maskOrdinal(final byte ordinal) {
+        if (ordinal == CompactIslandGenerator.NO_BIOME) {
+            return NO_BIOME;
+        }
+        return 1L << ordinal;
+    }
+}
@@ -73,6 +73,37 @@ public interface ICIsland {
      */
     ICBiome[] getBiomeChunk(int relativeX, int relativeZ);
 
+    /**
+     * Fills the given array with the biomes for a whole chunk, to avoid
+     * allocating a new array for every chunk.
+     * 
+     * @param relativeX
+     *            location of the chunk relative to the island
+     * @param relativeZ
+     *            location of the chunk relative to the island
+     * @param result
+     *            an ICBiome[16 * 16] (or larger) to be filled with the biomes
+     *            for the whole chunk such that each element is at index
+     *            [x + z * 16]
+     */
+    void getBiomeChunk(int relativeX, int relativeZ, ICBiome[] result);
+
+    /**
+     * Fills the given array with the ordinals of the biomes for a whole chunk.
+     * Avoids creating an ICBiome[] when only the ordinals are needed.
+     * 
+     * @param relativeX
+     *            location of the chunk relative to the island
+     * @param relativeZ
+     *            location of the chunk relative to the island
+     * @param result
+     *            a byte[16 * 16] (or larger) to be filled with the ICBiome
+     *            ordinals for the whole chunk such that each element is at
+     *            index [x + z * 16], or CompactIslandGenerator.NO_BIOME where
+     *            the island has no biome
+     */
+    void getBiomeChunkOrdinals(int relativeX, int relativeZ, byte[] result);
+
     /**
      * Returns the biomes for the whole island.
      * 
@@ -80,4 +111,13 @@ public interface ICIsland {
      *         island such that each element is at index [x + z * xSize]
      */
     ICBiome[] getBiomeAll();
+
+    /**
+     * Returns a summary of which biomes are present on this island and where.
+     * The summary is much smaller than the island, so it may remain available
+     * after the island itself has been evicted from memory.
+     * 
+     * @return the summary of this island's biomes
+     */
+    ICBiomeSummary getBiomeSummary();
 }
@@ -61,6 +61,133 @@ public interface ICWorld {
      */
     ICBiome[] getBiomeChunk(int x, int z);
 
+    /**
+     * Fills the given array with the biomes for a whole chunk, to avoid
+     * allocating a new array for every chunk.
+     * 
+     * @param x
+     *            location of the chunk in the world (measured in blocks)
+     * @param z
+     *            location of the chunk in the world (measured in blocks)
+     * @param result
+     *            an ICBiome[16 * 16] (or larger) to be filled with the biomes
+     *            for the whole chunk such that each element is at index
+     *            [x + z * 16]
+     */
+    void getBiomeChunk(int x, int z, ICBiome[] result);
+
+    /**
+     * Fills the given array with the ordinals of the biomes for a whole chunk.
+     * Avoids creating an ICBiome[] when only the ordinals are needed.
+     * 
+     * @param x
+     *            location of the chunk in the world (measured in blocks)
+     * @param z
+     *            location of the chunk in the world (measured in blocks)
+     * @param result
+     *            a byte[16 * 16] (or larger) to be filled with the ICBiome
+     *            ordinals for the whole chunk such that each element is at
+     *            index [x + z * 16]
+     */
+    void getBiomeChunkOrdinals(int x, int z, byte[] result);
+
+    /**
+     * Fills the given array with the biomes for a rectangular region, which
+     * may span several chunks and islands.
+     * 
+     * @param xMin
+     *            the x-coordinate of the top-left of the region (measured in
+     *            blocks)
+     * @param zMin
+     *            the z-coordinate of the top-left of the region (measured in
+     *            blocks)
+     * @param xSize
+     *            the width of the region (measured in blocks)
+     * @param zSize
+     *            the length of the region (measured in blocks)
+     * @param result
+     *            an ICBiome[xSize * zSize] (or larger) to be filled with the
+     *            biomes for the region such that each element is at index
+     *            [x + z * xSize]
+     */
+    void getBiomeRegion(int xMin, int zMin, int xSize, int zSize, ICBiome[] result);
+
+    /**
+     * Fills the given array with the ordinals of the biomes at a grid of
+     * evenly spaced sample points. Much faster than calling getBiomeAt for
+     * each point as each island is only looked up once.
+     * 
+     * @param xMin
+     *            the x-coordinate of the first sample point (measured in
+     *            blocks)
+     * @param zMin
+     *            the z-coordinate of the first sample point (measured in
+     *            blocks)
+     * @param xSize
+     *            the number of sample points along the x-axis
+     * @param zSize
+     *            the number of sample points along the z-axis
+     * @param scale
+     *            the distance between sample points (measured in blocks)
+     * @param result
+     *            a byte[xSize * zSize] (or larger) to be filled with the
+     *            ICBiome ordinals such that the biome at
+     *            (xMin + x * scale, zMin + z * scale) is at index
+     *            [x + z * xSize]
+     */
+    void getBiomeSamples(int xMin, int zMin, int xSize, int zSize, int scale, byte[] result);
+
+    /**
+     * Returns true if every sample point in the given grid has one of the
+     * given biomes. Equivalent to checking the result of getBiomeSamples, but
+     * uses each island's ICBiomeSummary to skip whole tiles where possible.
+     * 
+     * @param xMin
+     *            the x-coordinate of the first sample point (measured in
+     *            blocks)
+     * @param zMin
+     *            the z-coordinate of the first sample point (measured in
+     *            blocks)
+     * @param xSize
+     *            the number of sample points along the x-axis
+     * @param zSize
+     *            the number of sample points along the z-axis
+     * @param scale
+     *            the distance between sample points (measured in blocks)
+     * @param biomes
+     *            the mask of allowed biomes, see ICBiomeSummary.mask
+     * @return true if all sample points have one of the given biomes
+     */
+    boolean containsOnlyBiomes(int xMin, int zMin, int xSize, int zSize, int scale, long biomes);
+
+    /**
+     * Finds which sample points in the given grid have one of the given
+     * biomes. Equivalent to checking the result of getBiomeSamples, but uses
+     * each island's ICBiomeSummary to skip whole tiles where possible.
+     * 
+     * @param xMin
+     *            the x-coordinate of the first sample point (measured in
+     *            blocks)
+     * @param zMin
+     *            the z-coordinate of the first sample point (measured in
+     *            blocks)
+     * @param xSize
+     *            the number of sample points along the x-axis
+     * @param zSize
+     *            the number of sample points along the z-axis
+     * @param scale
+     *            the distance between sample points (measured in blocks)
+     * @param biomes
+     *            the mask of biomes to find, see ICBiomeSummary.mask
+     * @param result
+     *            a boolean[xSize * zSize] (or larger) to be filled such that
+     *            index [x + z * xSize] is true if the biome at
+     *            (xMin + x * scale, zMin + z * scale) is one of the given
+     *            biomes
+     * @return the number of sample points which have one of the given biomes
+     */
+    int findBiomes(int xMin, int zMin, int xSize, int zSize, int scale, long biomes, boolean[] result);
+
     /**
      * Returns the island whose inner-region contains the given location.
      * 
@@ -0,0 +1,99 @@
+package com.github.hoqhuuep.islandcraft.benchmarks;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.MemoryConfiguration;
+
+import com.github.hoqhuuep.islandcraft.core.GeneratorTable;
+import com.github.hoqhuuep.islandcraft.core.ICLogger;
+import com.github.hoqhuuep.islandcraft.core.IslandCache;
+import com.github.hoqhuuep.islandcraft.core.IslandDatabase;
+import com.github.hoqhuuep.islandcraft.core.IslandIndex;
+
+final class Benchmarks {
+    static final String ALPHA = "com.github.hoqhuuep.islandcraft.core.IslandGeneratorAlpha FOREST ~ FOREST_HILLS ~ FLOWER_FOREST ~ OCEAN BEACH RIVER";
+    static final String[] ALPHA_ARGS = { "FOREST", "~", "FOREST_HILLS", "~", "FLOWER_FOREST", "~", "OCEAN", "BEACH", "RIVER" };
+
+    private Benchmarks() {
+        // Utility class
+    }
+
+    static void initLogger() {
+        // Core classes log through ICLogger, which is normally set up by the
+        // plugin. Only warnings are shown so logging does not skew results
+        final Logger logger = Logger.getLogger("IslandCraft");
+        logger.setLevel(Level.WARNING);
+        ICLogger.logger = logger;
+    }
+
+    static IslandCache newIslandCache() {
+        final MemoryConfiguration config = new MemoryConfiguration();
+        config.set("generation-threads", 1);
+        config.set("disk-cache", false);
+        config.set("disk-cache-size", 0);
+        config.set("maximum-weight", 0);
+        config.set("eviction-policy", "size-only");
+        config.set("expire-after", 30);
+        config.set("database-cache-size", 0);
+        config.set("summary-cache-size", 0);
+        config.set("compact", "never");
+        config.set("off-heap", false);
+        return new IslandCache(config, null);
+    }
+
+    static class MemoryIslandDatabase implements IslandDatabase {
+        private final Map<String, Result> islands = new HashMap<String, Result>();
+        private final GeneratorTable generators = new GeneratorTable();
+
+        @Override
+        public synchronized int getGeneratorId(final String generator) {
+            int generatorId = generators.getId(generator);
+            if (generatorId == GeneratorTable.NOT_FOUND) {
+                generatorId = generators.nextId();
+                generators.put(generatorId, generator);
+            }
+            return generatorId;
+        }
+
+        @Override
+        public String getGenerator(final int generatorId) {
+            return generators.get(generatorId);
+        }
+
+        @Override
+        public synchronized void save(final String worldName, final int centerX, final int centerZ, final long islandSeed, final int generatorId) {
+            islands.put(worldName + " " + centerX + " " + centerZ, new Result(islandSeed, generatorId));
+        }
+
+        @Override
+        public synchronized void saveAll(final List<Entry> entries) {
+            for (final Entry entry : entries) {
+                save(entry.getWorldName(), entry.getCenterX(), entry.getCenterZ(), entry.getIslandSeed(), entry.getGeneratorId());
+            }
+        }
+
+        @Override
+        public synchronized Result load(final String worldName, final int centerX, final int centerZ) {
+            return islands.get(worldName + " " + centerX + " " + centerZ);
+        }
+
+        @Override
+        public synchronized void loadAll(final String worldName, final IslandIndex index) {
+            for (final Map.Entry<String, Result> island : islands.entrySet()) {
+                final String[] key = island.getKey().split(" ");
+                if (key[0].equals(worldName)) {
+                    index.put(Integer.parseInt(key[1]), Integer.parseInt(key[2]), island.getValue().getIslandSeed(), island.getValue().getGeneratorId());
+                }
+            }
+        }
+
+        @Override
+        public synchronized boolean isEmpty(final String worldName) {
+            return islands.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.hoqhuuep.islandcraft.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.configuration.MemoryConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.hoqhuuep.islandcraft.api.ICBiome;
+import com.github.hoqhuuep.islandcraft.api.ICWorld;
+import com.github.hoqhuuep.islandcraft.core.DefaultWorld;
+import com.github.hoqhuuep.islandcraft.core.ICClassLoader;
+import com.github.hoqhuuep.islandcraft.core.IslandCache;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DefaultWorldBenchmark {
+    // A 3x3 block of islands around spawn including the oceans between them
+    private static final int MIN_CHUNK = -30;
+    private static final int CHUNKS = 60;
+    private IslandCache cache;
+    private ICWorld world;
+    private int chunk;
+    private final ICBiome[] buffer = new ICBiome[256];
+
+    static ICWorld newWorld(final IslandCache cache) {
+        final MemoryConfiguration config = new MemoryConfiguration();
+        config.set("ocean", "com.github.hoqhuuep.islandcraft.core.ConstantBiomeDistribution DEEP_OCEAN");
+        config.set("island-distribution", "com.github.hoqhuuep.islandcraft.core.HexagonalIslandDistribution 288 32");
+        config.set("island-generators", Arrays.asList(Benchmarks.ALPHA));
+        config.set("preload-islands", true);
+        return new DefaultWorld("benchmark", 1234567890L, new Benchmarks.MemoryIslandDatabase(), config, cache, new ICClassLoader());
+    }
+
+    @Setup
+    public void setUp() {
+        Benchmarks.initLogger();
+        cache = Benchmarks.newIslandCache();
+        world = newWorld(cache);
+        // Generate every island up front, only the lookup is measured
+        for (int i = 0; i < CHUNKS * CHUNKS; ++i) {
+            getBiomeChunk();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        cache.shutdown();
+    }
+
+    @Benchmark
+    public ICBiome[] getBiomeChunk() {
+        chunk = (chunk + 1) % (CHUNKS * CHUNKS);
+        final int x = (MIN_CHUNK + chunk % CHUNKS) * 16;
+        final int z = (MIN_CHUNK + chunk / CHUNKS) * 16;
+        return world.getBiomeChunk(x, z);
+    }
+
+    @Benchmark
+    public ICBiome[] getBiomeChunkIntoBuffer() {
+        chunk = (chunk + 1) % (CHUNKS * CHUNKS);
+        final int x = (MIN_CHUNK + chunk % CHUNKS) * 16;
+        final int z = (MIN_CHUNK + chunk / CHUNKS) * 16;
+        world.getBiomeChunk(x, z, buffer);
+        return buffer;
+    }
+}
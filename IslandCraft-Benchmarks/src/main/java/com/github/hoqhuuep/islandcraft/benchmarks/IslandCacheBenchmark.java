@@ -0,0 +1,54 @@
+package com.github.hoqhuuep.islandcraft.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.hoqhuuep.islandcraft.api.ICBiome;
+import com.github.hoqhuuep.islandcraft.api.ICIsland;
+import com.github.hoqhuuep.islandcraft.api.ICWorld;
+import com.github.hoqhuuep.islandcraft.core.IslandCache;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IslandCacheBenchmark {
+    private static final int CHUNKS = 288 / 16;
+    private IslandCache cache;
+    private ICIsland island;
+    private int chunk;
+
+    @Setup
+    public void setUp() {
+        Benchmarks.initLogger();
+        cache = Benchmarks.newIslandCache();
+        final ICWorld world = DefaultWorldBenchmark.newWorld(cache);
+        island = world.getIslandAt(0, 0);
+        // Generate the island up front, only the lookup is measured
+        island.getBiomeAt(0, 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        cache.shutdown();
+    }
+
+    @Benchmark
+    public ICBiome[] biomeChunk() {
+        chunk = (chunk + 1) % (CHUNKS * CHUNKS);
+        return cache.biomeChunk(island, (chunk % CHUNKS) * 16, (chunk / CHUNKS) * 16);
+    }
+}
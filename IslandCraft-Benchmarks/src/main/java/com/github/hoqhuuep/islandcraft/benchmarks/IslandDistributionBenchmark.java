@@ -0,0 +1,64 @@
+package com.github.hoqhuuep.islandcraft.benchmarks;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.hoqhuuep.islandcraft.api.ICLocation;
+import com.github.hoqhuuep.islandcraft.api.IslandDistribution;
+import com.github.hoqhuuep.islandcraft.core.HexagonalIslandDistribution;
+import com.github.hoqhuuep.islandcraft.core.SquareIslandDistribution;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IslandDistributionBenchmark {
+    private static final long WORLD_SEED = 1234567890L;
+    // Large odd steps so successive calls land in different islands and oceans
+    private static final int STEP_X = 97;
+    private static final int STEP_Z = 61;
+    @Param({ "hexagonal", "square" })
+    public String distribution;
+    private IslandDistribution islandDistribution;
+    private int x;
+    private int z;
+
+    @Setup
+    public void setUp() {
+        Benchmarks.initLogger();
+        final String[] args = { "288", "32" };
+        if (distribution.equals("hexagonal")) {
+            islandDistribution = new HexagonalIslandDistribution(args);
+        } else {
+            islandDistribution = new SquareIslandDistribution(args);
+        }
+    }
+
+    @Benchmark
+    public ICLocation getCenterAt() {
+        x += STEP_X;
+        z += STEP_Z;
+        return islandDistribution.getCenterAt(x, z, WORLD_SEED);
+    }
+
+    @Benchmark
+    public Set<ICLocation> getCentersAt() {
+        x += STEP_X;
+        z += STEP_Z;
+        return islandDistribution.getCentersAt(x, z, WORLD_SEED);
+    }
+}
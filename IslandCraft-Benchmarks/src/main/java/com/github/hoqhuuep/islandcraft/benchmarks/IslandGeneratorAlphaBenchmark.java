@@ -0,0 +1,47 @@
+package com.github.hoqhuuep.islandcraft.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.hoqhuuep.islandcraft.api.ICBiome;
+import com.github.hoqhuuep.islandcraft.core.IslandGeneratorAlpha;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IslandGeneratorAlphaBenchmark {
+    @Param({ "160", "288", "544" })
+    public int size;
+    private IslandGeneratorAlpha generator;
+    private long seed;
+
+    @Setup
+    public void setUp() {
+        Benchmarks.initLogger();
+        generator = new IslandGeneratorAlpha(Benchmarks.ALPHA_ARGS);
+    }
+
+    @Benchmark
+    public ICBiome[] generate() {
+        return generator.generate(size, size, seed++);
+    }
+
+    @Benchmark
+    public byte[] generateCompact() {
+        return generator.generateCompact(size, size, seed++);
+    }
+}
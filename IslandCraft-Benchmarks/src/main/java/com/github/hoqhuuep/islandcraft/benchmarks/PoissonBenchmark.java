@@ -0,0 +1,37 @@
+package com.github.hoqhuuep.islandcraft.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.hoqhuuep.islandcraft.core.mosaic.Poisson;
+import com.github.hoqhuuep.islandcraft.core.mosaic.Site;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PoissonBenchmark {
+    @Param({ "160", "288", "544" })
+    public int size;
+    private long seed;
+
+    @Benchmark
+    public List<Site> generate() {
+        // Vary the seed so every iteration does not produce the same island
+        return new Poisson(size, size, 8).generate(new Random(seed++));
+    }
+}
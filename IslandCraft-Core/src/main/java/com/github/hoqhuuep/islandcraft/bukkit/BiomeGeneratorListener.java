@@ -1,11 +1,13 @@
 package com.github.hoqhuuep.islandcraft.bukkit;
 
+import java.io.File;
 import java.util.HashSet;
 import java.util.Set;
 
 import org.bukkit.Chunk;
 import org.bukkit.World;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.world.ChunkLoadEvent;
@@ -39,7 +41,13 @@ public class BiomeGeneratorListener implements Listener {
             throw new IllegalArgumentException("No configuration section for 'worlds' found in config.yml");
         }
         worldsDone = new HashSet<String>();
-        cache = new IslandCache();
+        ConfigurationSection cacheConfig = islandCraft.getConfig().getConfigurationSection("island-cache");
+        if (cacheConfig == null) {
+            ICLogger.logger.warning("No configuration section for 'island-cache' found in config.yml");
+            ICLogger.logger.warning("Default values will be used");
+            cacheConfig = new MemoryConfiguration();
+        }
+        cache = new IslandCache(cacheConfig, new File(plugin.getDataFolder(), "cache"));
         classLoader = new ICClassLoader();
     }
 
@@ -93,11 +101,19 @@ public class BiomeGeneratorListener implements Listener {
             // If this is the very first time, regenerate the chunk
             if (database.isEmpty(worldName)) {
                 final Chunk chunk = event.getChunk();
-                ICLogger.logger.info(String.format("Regenerating spawn chunk at x: %d, z: %d", chunk.getX(), chunk.getZ()));
+                ICLogger.info("Regenerating spawn chunk at x: %d, z: %d", chunk.getX(), chunk.getZ());
                 world.regenerateChunk(chunk.getX(), chunk.getZ());
             }
         }
         worldsDone.add(worldName);
         islandCraft.getIslandCraft().addWorld(icWorld);
     }
+
+    public IslandCache getCache() {
+        return cache;
+    }
+
+    public void shutdown() {
+        cache.shutdown();
+    }
 }
@@ -3,7 +3,9 @@ package com.github.hoqhuuep.islandcraft.bukkit;
 import java.util.Arrays;
 
 import com.github.hoqhuuep.islandcraft.api.ICBiome;
+import com.github.hoqhuuep.islandcraft.api.ICBiomeSummary;
 import com.github.hoqhuuep.islandcraft.api.ICWorld;
+import com.github.hoqhuuep.islandcraft.core.BiomeCodec;
 import com.github.hoqhuuep.islandcraft.core.ICLogger;
 import com.github.hoqhuuep.islandcraft.nms.BiomeGenerator;
 
@@ -40,6 +42,68 @@ public class IslandCraftBiomeGenerator extends BiomeGenerator {
         }
     }
 
+    @Override
+    public void generateChunkBiomes(final int x, final int z, final ICBiome[] result) {
+        try {
+            world.getBiomeChunk(x, z, result);
+        } catch (final Exception e) {
+            ICLogger.logger.warning(String.format("Error generating biomes for chunk with x: %d, z: %d", x, z));
+            ICLogger.logger.warning("Default biome 'DEEP_OCEAN' used instead");
+            ICLogger.logger.warning("Exception message: " + e.getMessage());
+            Arrays.fill(result, 0, 256, ICBiome.DEEP_OCEAN);
+        }
+    }
+
+    @Override
+    public void generateChunkOrdinals(final int x, final int z, final byte[] result) {
+        try {
+            world.getBiomeChunkOrdinals(x, z, result);
+        } catch (final Exception e) {
+            ICLogger.logger.warning(String.format("Error generating biomes for chunk with x: %d, z: %d", x, z));
+            ICLogger.logger.warning("Default biome 'DEEP_OCEAN' used instead");
+            ICLogger.logger.warning("Exception message: " + e.getMessage());
+            Arrays.fill(result, 0, 256, BiomeCodec.encode(ICBiome.DEEP_OCEAN));
+        }
+    }
+
+    @Override
+    public void generateBiomeSamples(final int xMin, final int zMin, final int xSize, final int zSize, final int scale, final byte[] result) {
+        try {
+            world.getBiomeSamples(xMin, zMin, xSize, zSize, scale, result);
+        } catch (final Exception e) {
+            ICLogger.logger.warning(String.format("Error generating biomes for area with x: %d, z: %d, xSize: %d, zSize: %d", xMin, zMin, xSize * scale, zSize * scale));
+            ICLogger.logger.warning("Default biome 'DEEP_OCEAN' used instead");
+            ICLogger.logger.warning("Exception message: " + e.getMessage());
+            Arrays.fill(result, 0, xSize * zSize, BiomeCodec.encode(ICBiome.DEEP_OCEAN));
+        }
+    }
+
+    @Override
+    public boolean containsOnlyBiomes(final int xMin, final int zMin, final int xSize, final int zSize, final int scale, final long biomes) {
+        try {
+            return world.containsOnlyBiomes(xMin, zMin, xSize, zSize, scale, biomes);
+        } catch (final Exception e) {
+            ICLogger.logger.warning(String.format("Error checking biomes for area with x: %d, z: %d, xSize: %d, zSize: %d", xMin, zMin, xSize * scale, zSize * scale));
+            ICLogger.logger.warning("Default biome 'DEEP_OCEAN' used instead");
+            ICLogger.logger.warning("Exception message: " + e.getMessage());
+            return (biomes & ICBiomeSummary.mask(ICBiome.DEEP_OCEAN)) != 0;
+        }
+    }
+
+    @Override
+    public int findBiomes(final int xMin, final int zMin, final int xSize, final int zSize, final int scale, final long biomes, final boolean[] result) {
+        try {
+            return world.findBiomes(xMin, zMin, xSize, zSize, scale, biomes, result);
+        } catch (final Exception e) {
+            ICLogger.logger.warning(String.format("Error finding biomes for area with x: %d, z: %d, xSize: %d, zSize: %d", xMin, zMin, xSize * scale, zSize * scale));
+            ICLogger.logger.warning("Default biome 'DEEP_OCEAN' used instead");
+            ICLogger.logger.warning("Exception message: " + e.getMessage());
+            final boolean match = (biomes & ICBiomeSummary.mask(ICBiome.DEEP_OCEAN)) != 0;
+            Arrays.fill(result, 0, xSize * zSize, match);
+            return match ? xSize * zSize : 0;
+        }
+    }
+
     @Override
     public void cleanupCache() {
         // NOP
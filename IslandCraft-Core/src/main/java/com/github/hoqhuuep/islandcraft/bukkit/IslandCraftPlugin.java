@@ -3,7 +3,9 @@ package com.github.hoqhuuep.islandcraft.bukkit;
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 
 import org.bukkit.Bukkit;
@@ -11,24 +13,36 @@ import org.bukkit.World;
 import org.bukkit.WorldCreator;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
-import org.bukkit.event.Listener;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import com.avaje.ebean.EbeanServer;
 import com.github.hoqhuuep.islandcraft.api.ICLocation;
 import com.github.hoqhuuep.islandcraft.api.ICRegion;
+import com.github.hoqhuuep.islandcraft.api.ICWorld;
 import com.github.hoqhuuep.islandcraft.api.IslandCraft;
 import com.github.hoqhuuep.islandcraft.core.DefaultIslandCraft;
+import com.github.hoqhuuep.islandcraft.core.DefaultWorld;
 import com.github.hoqhuuep.islandcraft.core.EbeanServerIslandDatabase;
 import com.github.hoqhuuep.islandcraft.core.EbeanServerUtil;
+import com.github.hoqhuuep.islandcraft.core.FileIslandDatabase;
+import com.github.hoqhuuep.islandcraft.core.ICEvent;
 import com.github.hoqhuuep.islandcraft.core.ICLogger;
+import com.github.hoqhuuep.islandcraft.core.IslandCache;
 import com.github.hoqhuuep.islandcraft.core.IslandDatabase;
+import com.github.hoqhuuep.islandcraft.core.WriteBehindIslandDatabase;
 import com.github.hoqhuuep.islandcraft.nms.NmsWrapper;
+import com.google.common.cache.CacheStats;
 
 public class IslandCraftPlugin extends JavaPlugin {
     private DefaultIslandCraft islandCraft = null;
+    private BiomeGeneratorListener listener = null;
+    private WriteBehindIslandDatabase writeBehindDatabase = null;
+    private FileIslandDatabase fileDatabase = null;
+    private final Map<String, WorldPregenerator> pregenerators = new HashMap<String, WorldPregenerator>();
 
     @Override
     public void onEnable() {
@@ -73,21 +87,50 @@ public class IslandCraftPlugin extends JavaPlugin {
             return;
         }
 
+        ConfigurationSection databaseConfig = config.getConfigurationSection("database");
+        if (databaseConfig == null) {
+            ICLogger.logger.warning("No configuration section for 'database' found in config.yml");
+            ICLogger.logger.warning("Default values will be used");
+            databaseConfig = new MemoryConfiguration();
+        }
+        if (!databaseConfig.contains("store") || !databaseConfig.isString("store")) {
+            ICLogger.logger.warning("No string-value for 'database.store' found in config.yml");
+            ICLogger.logger.warning("Default value 'ebean' will be used");
+        }
+        final String store = databaseConfig.getString("store", "ebean").toLowerCase();
         IslandDatabase database;
-        try {
-            final EbeanServer ebeanServer = EbeanServerUtil.build(this);
-            database = new EbeanServerIslandDatabase(ebeanServer);
-        } catch (final Exception e) {
-            ICLogger.logger.severe("Error creating EbeanServer database");
-            ICLogger.logger.severe("Check for updates at http://dev.bukkit.org/bukkit-plugins/islandcraft/");
-            ICLogger.logger.severe("Exception message: " + e.getMessage());
-            setEnabled(false);
-            return;
+        if (store.equals("file")) {
+            fileDatabase = new FileIslandDatabase(new File(getDataFolder(), "islands"));
+            copyFromEbeanServer(fileDatabase);
+            database = fileDatabase;
+        } else {
+            if (!store.equals("ebean")) {
+                ICLogger.logger.warning("Unknown value '" + store + "' for 'database.store' in config.yml");
+                ICLogger.logger.warning("Default value 'ebean' will be used");
+            }
+            try {
+                final EbeanServer ebeanServer = EbeanServerUtil.build(this);
+                database = new EbeanServerIslandDatabase(ebeanServer);
+            } catch (final Exception e) {
+                ICLogger.logger.severe("Error creating EbeanServer database");
+                ICLogger.logger.severe("Check for updates at http://dev.bukkit.org/bukkit-plugins/islandcraft/");
+                ICLogger.logger.severe("Exception message: " + e.getMessage());
+                setEnabled(false);
+                return;
+            }
+        }
+        if (!databaseConfig.contains("write-behind") || !databaseConfig.isBoolean("write-behind")) {
+            ICLogger.logger.warning("No boolean-value for 'database.write-behind' found in config.yml");
+            ICLogger.logger.warning("Default value 'true' will be used");
+        }
+        if (databaseConfig.getBoolean("write-behind", true)) {
+            writeBehindDatabase = new WriteBehindIslandDatabase(database, databaseConfig);
+            database = writeBehindDatabase;
         }
 
         try {
             islandCraft = new DefaultIslandCraft();
-            final Listener listener = new BiomeGeneratorListener(this, database, nms);
+            listener = new BiomeGeneratorListener(this, database, nms);
             getServer().getPluginManager().registerEvents(listener, this);
         } catch (final Exception e) {
             ICLogger.logger.severe("Error creating or registering BiomeGeneratorListener");
@@ -96,8 +139,38 @@ public class IslandCraftPlugin extends JavaPlugin {
             setEnabled(false);
             return;
         }
+
+        ConfigurationSection prefetchConfig = config.getConfigurationSection("prefetch");
+        if (prefetchConfig == null) {
+            ICLogger.logger.warning("No configuration section for 'prefetch' found in config.yml");
+            ICLogger.logger.warning("Default values will be used");
+            prefetchConfig = new MemoryConfiguration();
+        }
+        new IslandPrefetcher(this, listener.getCache(), prefetchConfig).start();
     }
     
+    /**
+     * Copies the islands from the EbeanServer database into the file database
+     * the first time the file database is used.
+     */
+    private void copyFromEbeanServer(final FileIslandDatabase target) {
+        final File done = new File(getDataFolder(), "islands/copied-from-database");
+        if (done.exists()) {
+            return;
+        }
+        try {
+            final EbeanServer ebeanServer = EbeanServerUtil.build(this);
+            final int count = new EbeanServerIslandDatabase(ebeanServer).copyTo(target);
+            ICLogger.logger.info(String.format("Copied %d islands from the database in 'database' to plugins/IslandCraft/islands", count));
+            done.getParentFile().mkdirs();
+            done.createNewFile();
+        } catch (final Exception e) {
+            ICLogger.logger.warning("Error copying islands from the database in 'database' to plugins/IslandCraft/islands");
+            ICLogger.logger.warning("It will be tried again next time the server starts");
+            ICLogger.logger.warning("Exception message: " + e.getMessage());
+        }
+    }
+
     @Override
     public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
         if (sender instanceof Player) {
@@ -105,12 +178,12 @@ public class IslandCraftPlugin extends JavaPlugin {
             return false;
         }
         if (args.length == 0) {
-            sender.sendMessage("/ic <reload|create>");
+            sender.sendMessage("/ic <reload|create|stats|pregen>");
             return false;
         }
         switch (args[0].toLowerCase()) {
             default: {
-                sender.sendMessage("/ic <reload|create>");
+                sender.sendMessage("/ic <reload|create|stats|pregen>");
                 break;
             }
             case "reload": {
@@ -118,6 +191,88 @@ public class IslandCraftPlugin extends JavaPlugin {
                 reloadConfig();
                 break;
             }
+            case "stats": {
+                if (listener == null) {
+                    sender.sendMessage("IslandCraft is not enabled");
+                    break;
+                }
+                final IslandCache cache = listener.getCache();
+                final CacheStats stats = cache.getStats();
+                sender.sendMessage(String.format("Island cache: %d islands, %d KiB (%d KiB off-heap)", cache.getSize(), cache.getWeight() / 1024, cache.getOffHeapBytes() / 1024));
+                sender.sendMessage(String.format("  hits: %d, misses: %d, hit rate: %.1f%%, evictions: %d, average load: %.1f ms", stats.hitCount(), stats.missCount(), stats.hitRate() * 100.0, stats.evictionCount(), stats.averageLoadPenalty() / 1000000.0));
+                for (final ICWorld world : islandCraft.getWorlds()) {
+                    if (world instanceof DefaultWorld) {
+                        final DefaultWorld defaultWorld = (DefaultWorld) world;
+                        final CacheStats worldStats = defaultWorld.getDatabaseCacheStats();
+                        sender.sendMessage(String.format("Database cache for %s: %d islands", world.getName(), defaultWorld.getDatabaseCacheSize()));
+                        sender.sendMessage(String.format("  hits: %d, misses: %d, hit rate: %.1f%%, evictions: %d", worldStats.hitCount(), worldStats.missCount(), worldStats.hitRate() * 100.0, worldStats.evictionCount()));
+                    }
+                }
+                sender.sendMessage(String.format("Islands generated: %d", ICEvent.ISLAND_GENERATE.getCount()));
+                sender.sendMessage(String.format("Island lookups: %d loads (%d not found), %d saves", ICEvent.DATABASE_LOAD.getCount(), ICEvent.DATABASE_LOAD_MISS.getCount(), ICEvent.DATABASE_SAVE.getCount()));
+                break;
+            }
+            case "pregen": {
+                if (args.length < 3) {
+                    sender.sendMessage("/ic pregen <world> <radius>");
+                    sender.sendMessage("OR");
+                    sender.sendMessage("/ic pregen <world> stop");
+                    sender.sendMessage("Note: radius is measured in blocks from 0, 0");
+                    break;
+                }
+                final String worldName = args[1];
+                final WorldPregenerator running = pregenerators.get(worldName);
+                if (args[2].equalsIgnoreCase("stop")) {
+                    if (running == null || !running.isRunning()) {
+                        sender.sendMessage("Not pregenerating " + worldName);
+                    } else {
+                        running.stop();
+                    }
+                    break;
+                }
+                if (running != null && running.isRunning()) {
+                    sender.sendMessage("Already pregenerating " + worldName);
+                    break;
+                }
+                final World world = getServer().getWorld(worldName);
+                final ICWorld icWorld = islandCraft == null ? null : islandCraft.getWorld(worldName);
+                if (world == null || !(icWorld instanceof DefaultWorld)) {
+                    sender.sendMessage("No IslandCraft world with name: " + worldName);
+                    break;
+                }
+                final int radius;
+                try {
+                    radius = Integer.parseInt(args[2]);
+                } catch (final NumberFormatException e) {
+                    sender.sendMessage("Invalid radius for:");
+                    sender.sendMessage("/ic pregen <world> <radius>");
+                    return false;
+                }
+                if (radius <= 0) {
+                    sender.sendMessage("Radius must be positive");
+                    break;
+                }
+                ConfigurationSection pregenConfig = getConfig().getConfigurationSection("pregen");
+                if (pregenConfig == null) {
+                    ICLogger.logger.warning("No configuration section for 'pregen' found in config.yml");
+                    ICLogger.logger.warning("Default values will be used");
+                    pregenConfig = new MemoryConfiguration();
+                }
+                if (!pregenConfig.contains("chunks-per-tick") || !pregenConfig.isInt("chunks-per-tick")) {
+                    ICLogger.logger.warning("No int-value for 'pregen.chunks-per-tick' found in config.yml");
+                    ICLogger.logger.warning("Default value '4' will be used");
+                }
+                final int chunksPerTick = Math.max(1, pregenConfig.getInt("chunks-per-tick", 4));
+                if (!pregenConfig.contains("report-interval") || !pregenConfig.isInt("report-interval")) {
+                    ICLogger.logger.warning("No int-value for 'pregen.report-interval' found in config.yml");
+                    ICLogger.logger.warning("Default value '10' will be used");
+                }
+                final int reportInterval = Math.max(1, pregenConfig.getInt("report-interval", 10));
+                final WorldPregenerator pregenerator = new WorldPregenerator(this, world, (DefaultWorld) icWorld, listener.getCache(), sender, radius, chunksPerTick, reportInterval);
+                pregenerators.put(worldName, pregenerator);
+                pregenerator.start();
+                break;
+            }
             case "create": {
                 // ic create 2 1 ConstantBiomeDistribution IslandGeneratorAlpha
                 if (args.length < 4) {
@@ -151,6 +306,7 @@ public class IslandCraftPlugin extends JavaPlugin {
                 String path = "worlds." + world;
                 config.set(path + "." + "ocean" , "com.github.hoqhuuep.islandcraft.core.ConstantBiomeDistribution DEEP_OCEAN");
                 config.set(path + "." + "island-distribution" , "com.github.hoqhuuep.islandcraft.core." + distribution + " " + island + " " + ocean);
+                config.set(path + "." + "preload-islands" , true);
                 String[] gen_types = {
                     "com.github.hoqhuuep.islandcraft.core." + generator + " BIRCH_FOREST BIRCH_FOREST_M BIRCH_FOREST_HILLS BIRCH_FOREST_HILLS_M ~ ~ OCEAN BEACH RIVER",
                     "com.github.hoqhuuep.islandcraft.core." + generator + " COLD_TAIGA COLD_TAIGA_M COLD_TAIGA_HILLS ~ ~ ~ OCEAN COLD_BEACH FORZEN_RIVER",
@@ -193,12 +349,29 @@ public class IslandCraftPlugin extends JavaPlugin {
 
     @Override
     public void onDisable() {
+        for (final WorldPregenerator pregenerator : pregenerators.values()) {
+            pregenerator.stop();
+        }
+        pregenerators.clear();
+        if (listener != null) {
+            listener.shutdown();
+            listener = null;
+        }
+        if (writeBehindDatabase != null) {
+            writeBehindDatabase.close();
+            writeBehindDatabase = null;
+        }
+        if (fileDatabase != null) {
+            fileDatabase.close();
+            fileDatabase = null;
+        }
         ICLogger.logger = null;
     }
     
     @Override
     public List<Class<?>> getDatabaseClasses() {
-        final Class<?>[] classes = { EbeanServerIslandDatabase.IslandBean.class, EbeanServerIslandDatabase.IslandPK.class };
+        final Class<?>[] classes = { EbeanServerIslandDatabase.IslandEntryBean.class, EbeanServerIslandDatabase.GeneratorBean.class, EbeanServerIslandDatabase.IslandBean.class,
+                EbeanServerIslandDatabase.IslandPK.class };
         return Arrays.asList(classes);
     }
 
@@ -0,0 +1,137 @@
+package com.github.hoqhuuep.islandcraft.bukkit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.bukkit.Location;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+
+import com.github.hoqhuuep.islandcraft.api.ICIsland;
+import com.github.hoqhuuep.islandcraft.api.ICLocation;
+import com.github.hoqhuuep.islandcraft.api.ICWorld;
+import com.github.hoqhuuep.islandcraft.core.ICLogger;
+import com.github.hoqhuuep.islandcraft.core.IslandCache;
+
+/**
+ * Watches where players are heading and queues the islands they are likely to
+ * reach for background generation, so that sailing into a new island does not
+ * generate it on the main thread.
+ */
+public class IslandPrefetcher implements Runnable {
+    // Smaller than the smallest possible ocean, so no island is skipped
+    private static final int SAMPLE_SPACING = 32;
+    private static final int TICKS_PER_SECOND = 20;
+    // Faster than this and the player probably teleported
+    private static final int MAX_BLOCKS_PER_TICK = 2;
+    private final IslandCraftPlugin plugin;
+    private final IslandCache cache;
+    private final boolean enabled;
+    private final int periodTicks;
+    private final int lookaheadPeriods;
+    private Map<UUID, ICLocation> lastPositions;
+
+    public IslandPrefetcher(final IslandCraftPlugin plugin, final IslandCache cache, final ConfigurationSection config) {
+        this.plugin = plugin;
+        this.cache = cache;
+        if (!config.contains("enabled") || !config.isBoolean("enabled")) {
+            ICLogger.logger.warning("No boolean-value for 'prefetch.enabled' found in config.yml");
+            ICLogger.logger.warning("Default value 'true' will be used");
+        }
+        enabled = config.getBoolean("enabled", true);
+        if (!config.contains("period-ticks") || !config.isInt("period-ticks")) {
+            ICLogger.logger.warning("No int-value for 'prefetch.period-ticks' found in config.yml");
+            ICLogger.logger.warning("Default value '20' will be used");
+        }
+        periodTicks = Math.max(1, config.getInt("period-ticks", 20));
+        if (!config.contains("lookahead-seconds") || !config.isInt("lookahead-seconds")) {
+            ICLogger.logger.warning("No int-value for 'prefetch.lookahead-seconds' found in config.yml");
+            ICLogger.logger.warning("Default value '10' will be used");
+        }
+        final int lookaheadSeconds = Math.max(0, config.getInt("lookahead-seconds", 10));
+        lookaheadPeriods = (lookaheadSeconds * TICKS_PER_SECOND + periodTicks - 1) / periodTicks;
+        lastPositions = new HashMap<UUID, ICLocation>();
+    }
+
+    public void start() {
+        if (enabled) {
+            plugin.getServer().getScheduler().runTaskTimer(plugin, this, periodTicks, periodTicks);
+        }
+    }
+
+    @Override
+    public void run() {
+        // Bukkit API must be used from the main thread, but looking up islands
+        // can hit the database so that part is done asynchronously
+        final Map<UUID, ICLocation> positions = new HashMap<UUID, ICLocation>();
+        final List<Prediction> predictions = new ArrayList<Prediction>();
+        for (final Player player : plugin.getServer().getOnlinePlayers()) {
+            final ICWorld world = plugin.getIslandCraft().getWorld(player.getWorld().getName());
+            if (world == null) {
+                continue;
+            }
+            final Location location = player.getLocation();
+            final ICLocation position = new ICLocation(location.getBlockX(), location.getBlockZ());
+            final ICLocation lastPosition = lastPositions.get(player.getUniqueId());
+            positions.put(player.getUniqueId(), position);
+            if (lastPosition == null || !isPlausibleMove(lastPosition, position)) {
+                predictions.add(new Prediction(world, position, position));
+            } else {
+                final int dx = (position.getX() - lastPosition.getX()) * lookaheadPeriods;
+                final int dz = (position.getZ() - lastPosition.getZ()) * lookaheadPeriods;
+                predictions.add(new Prediction(world, position, new ICLocation(position.getX() + dx, position.getZ() + dz)));
+            }
+        }
+        lastPositions = positions;
+        if (predictions.isEmpty()) {
+            return;
+        }
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, new Runnable() {
+            @Override
+            public void run() {
+                for (final Prediction prediction : predictions) {
+                    prefetch(prediction);
+                }
+            }
+        });
+    }
+
+    private boolean isPlausibleMove(final ICLocation from, final ICLocation to) {
+        final int maxDistance = MAX_BLOCKS_PER_TICK * periodTicks;
+        return Math.abs(to.getX() - from.getX()) <= maxDistance && Math.abs(to.getZ() - from.getZ()) <= maxDistance;
+    }
+
+    private void prefetch(final Prediction prediction) {
+        final ICLocation from = prediction.from;
+        final ICLocation to = prediction.to;
+        final int dx = to.getX() - from.getX();
+        final int dz = to.getZ() - from.getZ();
+        final int steps = (int) Math.ceil(Math.sqrt((double) dx * dx + (double) dz * dz) / SAMPLE_SPACING);
+        // Walk from the player towards the predicted position so that the
+        // nearest islands are queued first
+        final Set<ICIsland> islands = new LinkedHashSet<ICIsland>();
+        for (int i = 0; i <= steps; ++i) {
+            final int x = steps == 0 ? from.getX() : from.getX() + dx * i / steps;
+            final int z = steps == 0 ? from.getZ() : from.getZ() + dz * i / steps;
+            islands.addAll(prediction.world.getIslandsAt(x, z));
+        }
+        cache.warm(islands);
+    }
+
+    private static class Prediction {
+        private final ICWorld world;
+        private final ICLocation from;
+        private final ICLocation to;
+
+        public Prediction(final ICWorld world, final ICLocation from, final ICLocation to) {
+            this.world = world;
+            this.from = from;
+            this.to = to;
+        }
+    }
+}
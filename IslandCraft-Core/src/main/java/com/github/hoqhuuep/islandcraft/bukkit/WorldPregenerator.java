@@ -0,0 +1,188 @@
+package com.github.hoqhuuep.islandcraft.bukkit;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.github.hoqhuuep.islandcraft.api.ICLocation;
+import com.github.hoqhuuep.islandcraft.api.ICRegion;
+import com.github.hoqhuuep.islandcraft.core.DefaultWorld;
+import com.github.hoqhuuep.islandcraft.core.ICLogger;
+import com.github.hoqhuuep.islandcraft.core.IslandCache;
+import com.google.common.util.concurrent.ListenableFutureTask;
+
+/**
+ * Generates every chunk within a square around the origin of a world before
+ * players get there. The islands for each band of chunk rows are generated in
+ * parallel in the background while the band before is being worked on, and
+ * chunks are generated on the main thread a few per tick so that the server
+ * keeps running. Progress is saved so that it can be resumed after a restart.
+ */
+public class WorldPregenerator implements Runnable {
+    private static final int BLOCKS_PER_CHUNK = 16;
+    private static final int TICKS_PER_SECOND = 20;
+    // Number of chunk rows whose islands are generated together
+    private static final int BAND_ROWS = 32;
+    private final IslandCraftPlugin plugin;
+    private final World world;
+    private final DefaultWorld icWorld;
+    private final IslandCache cache;
+    private final CommandSender sender;
+    private final File progressFile;
+    private final int radius;
+    private final int minChunkX;
+    private final int minChunkZ;
+    private final int chunksPerRow;
+    private final int rows;
+    private final long total;
+    private final int chunksPerTick;
+    private final int reportTicks;
+    private long next;
+    private int band;
+    private Future<?> bandReady;
+    private Future<?> nextBandReady;
+    private BukkitTask task;
+    private int ticks;
+
+    public WorldPregenerator(final IslandCraftPlugin plugin, final World world, final DefaultWorld icWorld, final IslandCache cache, final CommandSender sender, final int radius, final int chunksPerTick, final int reportSeconds) {
+        this.plugin = plugin;
+        this.world = world;
+        this.icWorld = icWorld;
+        this.cache = cache;
+        this.sender = sender;
+        this.radius = radius;
+        this.chunksPerTick = chunksPerTick;
+        reportTicks = reportSeconds * TICKS_PER_SECOND;
+        progressFile = new File(plugin.getDataFolder(), "pregen/" + world.getName() + ".yml");
+        minChunkX = floorDiv(-radius, BLOCKS_PER_CHUNK);
+        minChunkZ = minChunkX;
+        chunksPerRow = floorDiv(radius - 1, BLOCKS_PER_CHUNK) - minChunkX + 1;
+        rows = chunksPerRow;
+        total = (long) chunksPerRow * rows;
+        next = loadProgress();
+        band = -1;
+    }
+
+    public void start() {
+        sender.sendMessage(String.format("Pregenerating %d chunks of %s, starting at chunk %d", total, world.getName(), next));
+        task = plugin.getServer().getScheduler().runTaskTimer(plugin, this, 1, 1);
+    }
+
+    /**
+     * Stops generating chunks and saves progress so that the same pregen
+     * command carries on from here.
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+            saveProgress();
+            sender.sendMessage(String.format("Stopped pregenerating %s at %d of %d chunks", world.getName(), next, total));
+        }
+    }
+
+    public boolean isRunning() {
+        return task != null;
+    }
+
+    @Override
+    public void run() {
+        if (next >= total) {
+            task.cancel();
+            task = null;
+            progressFile.delete();
+            sender.sendMessage(String.format("Finished pregenerating %d chunks of %s", total, world.getName()));
+            return;
+        }
+        final int currentBand = (int) (next / chunksPerRow) / BAND_ROWS;
+        if (currentBand != band) {
+            bandReady = (currentBand == band + 1 && nextBandReady != null) ? nextBandReady : prepare(currentBand);
+            nextBandReady = prepare(currentBand + 1);
+            band = currentBand;
+            saveProgress();
+        }
+        // Wait for the islands rather than generate them on the main thread
+        if (bandReady.isDone()) {
+            for (int i = 0; i < chunksPerTick && next < total; ++i) {
+                final int row = (int) (next / chunksPerRow);
+                if (row / BAND_ROWS != band) {
+                    break;
+                }
+                final int x = minChunkX + (int) (next % chunksPerRow);
+                final int z = minChunkZ + row;
+                if (!world.isChunkLoaded(x, z)) {
+                    world.loadChunk(x, z, true);
+                    world.unloadChunkRequest(x, z);
+                }
+                ++next;
+            }
+        }
+        if (++ticks % reportTicks == 0) {
+            saveProgress();
+            sender.sendMessage(String.format("Pregenerating %s: %d of %d chunks (%.1f%%)", world.getName(), next, total, next * 100.0 / total));
+        }
+    }
+
+    private Future<?> prepare(final int prepareBand) {
+        final int firstRow = prepareBand * BAND_ROWS;
+        if (firstRow >= rows) {
+            return null;
+        }
+        final int lastRow = Math.min(rows, firstRow + BAND_ROWS);
+        final ICLocation min = new ICLocation(minChunkX * BLOCKS_PER_CHUNK, (minChunkZ + firstRow) * BLOCKS_PER_CHUNK);
+        final ICLocation max = new ICLocation((minChunkX + chunksPerRow) * BLOCKS_PER_CHUNK, (minChunkZ + lastRow) * BLOCKS_PER_CHUNK);
+        final ListenableFutureTask<Void> prepareTask = ListenableFutureTask.create(new Callable<Void>() {
+            @Override
+            public Void call() {
+                // Looking up islands can hit the database, so this is done
+                // off the main thread as well
+                try {
+                    cache.warm(icWorld.getIslandsIn(new ICRegion(min, max))).get();
+                } catch (final Exception e) {
+                    ICLogger.logger.warning("Error generating islands in the background for pregen of world with name: " + world.getName());
+                    ICLogger.logger.warning("They will be generated along with the chunks instead");
+                    ICLogger.logger.warning("Exception message: " + e.getMessage());
+                }
+                return null;
+            }
+        });
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, prepareTask);
+        return prepareTask;
+    }
+
+    private long loadProgress() {
+        if (!progressFile.exists()) {
+            return 0;
+        }
+        final YamlConfiguration progress = YamlConfiguration.loadConfiguration(progressFile);
+        if (progress.getInt("radius", -1) != radius) {
+            sender.sendMessage("Previous pregen of " + world.getName() + " used a different radius, starting again");
+            return 0;
+        }
+        return Math.max(0, Math.min(total, progress.getLong("next", 0)));
+    }
+
+    private void saveProgress() {
+        final YamlConfiguration progress = new YamlConfiguration();
+        progress.set("radius", radius);
+        progress.set("next", next);
+        try {
+            progressFile.getParentFile().mkdirs();
+            progress.save(progressFile);
+        } catch (final IOException e) {
+            ICLogger.logger.warning("Error saving pregen progress to " + progressFile);
+            ICLogger.logger.warning("Exception message: " + e.getMessage());
+        }
+    }
+
+    private static int floorDiv(final int a, final int b) {
+        // Only used with positive b
+        return a >= 0 ? a / b : ~(~a / b);
+    }
+}
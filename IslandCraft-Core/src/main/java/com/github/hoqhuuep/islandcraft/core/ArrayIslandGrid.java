@@ -0,0 +1,60 @@
+package com.github.hoqhuuep.islandcraft.core;
+
+import com.github.hoqhuuep.islandcraft.api.ICBiome;
+
+/**
+ * Stores one byte per block, the fastest to read.
+ */
+public class ArrayIslandGrid extends IslandGrid {
+    // Array header plus the fields of this object
+    private static final int OVERHEAD = 40;
+    private final byte[] ordinals;
+
+    /**
+     * @param ordinals
+     *            a byte[xSize * zSize] such that each element is at index
+     *            [x + z * xSize], which must not be modified afterwards
+     */
+    public ArrayIslandGrid(final int xSize, final int zSize, final byte[] ordinals) {
+        super(xSize, zSize);
+        checkLength(xSize, zSize, ordinals);
+        this.ordinals = ordinals;
+    }
+
+    @Override
+    public void getChunk(final int relativeX, final int relativeZ, final ICBiome[] result) {
+        checkChunk(relativeX, relativeZ);
+        int offset = relativeZ * xSize + relativeX;
+        int i = 0;
+        for (int z = 0; z < CHUNK_SIZE; ++z) {
+            for (int x = 0; x < CHUNK_SIZE; ++x) {
+                result[i++] = BiomeCodec.decode(ordinals[offset + x]);
+            }
+            offset += xSize;
+        }
+    }
+
+    @Override
+    public byte[] toArray() {
+        return ordinals.clone();
+    }
+
+    @Override
+    public int getWeight() {
+        return OVERHEAD + ordinals.length;
+    }
+
+    @Override
+    protected byte getUnchecked(final int x, final int z) {
+        return ordinals[z * xSize + x];
+    }
+
+    @Override
+    protected void copyChunk(final int relativeX, final int relativeZ, final byte[] result) {
+        int offset = relativeZ * xSize + relativeX;
+        for (int z = 0; z < CHUNK_SIZE; ++z) {
+            System.arraycopy(ordinals, offset, result, z * CHUNK_SIZE, CHUNK_SIZE);
+            offset += xSize;
+        }
+    }
+}
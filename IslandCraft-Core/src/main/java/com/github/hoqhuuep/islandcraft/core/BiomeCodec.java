@@ -0,0 +1,45 @@
+package com.github.hoqhuuep.islandcraft.core;
+
+import com.github.hoqhuuep.islandcraft.api.CompactIslandGenerator;
+import com.github.hoqhuuep.islandcraft.api.ICBiome;
+
+public class BiomeCodec {
+    public static final byte NONE = CompactIslandGenerator.NO_BIOME;
+    private static final ICBiome[] BIOMES = ICBiome.values();
+
+    private BiomeCodec() {
+        // Utility class
+    }
+
+    public static byte encode(final ICBiome biome) {
+        return biome == null ? NONE : (byte) biome.ordinal();
+    }
+
+    public static ICBiome decode(final byte ordinal) {
+        return ordinal == NONE ? null : BIOMES[ordinal];
+    }
+
+    public static boolean isValid(final byte ordinal) {
+        return ordinal == NONE || (ordinal >= 0 && ordinal < BIOMES.length);
+    }
+
+    public static byte[] encode(final ICBiome[] biomes) {
+        final byte[] result = new byte[biomes.length];
+        for (int i = 0; i < biomes.length; ++i) {
+            result[i] = encode(biomes[i]);
+        }
+        return result;
+    }
+
+    public static ICBiome[] decode(final byte[] ordinals) {
+        return decode(ordinals, 0, ordinals.length);
+    }
+
+    public static ICBiome[] decode(final byte[] ordinals, final int offset, final int length) {
+        final ICBiome[] result = new ICBiome[length];
+        for (int i = 0; i < length; ++i) {
+            result[i] = decode(ordinals[offset + i]);
+        }
+        return result;
+    }
+}
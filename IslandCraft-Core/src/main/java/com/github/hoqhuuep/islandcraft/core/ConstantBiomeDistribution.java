@@ -1,12 +1,16 @@
 package com.github.hoqhuuep.islandcraft.core;
 
+import java.util.Arrays;
+
 import org.apache.commons.lang.StringUtils;
 
-import com.github.hoqhuuep.islandcraft.api.BiomeDistribution;
+import com.github.hoqhuuep.islandcraft.api.ChunkBiomeDistribution;
 import com.github.hoqhuuep.islandcraft.api.ICBiome;
 
-public class ConstantBiomeDistribution implements BiomeDistribution {
+public class ConstantBiomeDistribution implements ChunkBiomeDistribution {
     private final ICBiome biome;
+    // Every chunk is the same, so fill them all by copying this one
+    private final ICBiome[] chunk;
 
     public ConstantBiomeDistribution(final String[] args) {
         ICLogger.logger.info("Creating ConstantBiomeDistribution with args: " + StringUtils.join(args, " "));
@@ -15,10 +19,21 @@ public class ConstantBiomeDistribution implements BiomeDistribution {
             throw new IllegalArgumentException("ConstantBiomeDistribution requrires 1 parameter");
         }
         biome = ICBiome.valueOf(args[0]);
+        chunk = new ICBiome[256];
+        Arrays.fill(chunk, biome);
     }
 
     @Override
     public ICBiome biomeAt(final int x, final int z, final long worldSeed) {
         return biome;
     }
+
+    @Override
+    public void biomeChunk(final int x, final int z, final long worldSeed, final ICBiome[] result) {
+        System.arraycopy(chunk, 0, result, 0, 256);
+    }
+
+    public ICBiome getBiome() {
+        return biome;
+    }
 }
@@ -4,10 +4,10 @@ import java.util.Arrays;
 
 import org.apache.commons.lang.StringUtils;
 
+import com.github.hoqhuuep.islandcraft.api.CompactIslandGenerator;
 import com.github.hoqhuuep.islandcraft.api.ICBiome;
-import com.github.hoqhuuep.islandcraft.api.IslandGenerator;
 
-public class ConstantIslandGenerator implements IslandGenerator {
+public class ConstantIslandGenerator implements CompactIslandGenerator {
     private final ICBiome biome;
 
     public ConstantIslandGenerator(final String[] args) {
@@ -21,9 +21,16 @@ public class ConstantIslandGenerator implements IslandGenerator {
 
     @Override
     public ICBiome[] generate(final int xSize, final int zSize, final long islandSeed) {
-        ICLogger.logger.info(String.format("Generating island from ConstantIslandGenerator with xSize: %d, zSize: %d, islandSeed: %d, biome: %s", xSize, zSize, islandSeed, biome));
-        final ICBiome[] result = new ICBiome[xSize * zSize];
-        Arrays.fill(result, biome);
+        return BiomeCodec.decode(generateCompact(xSize, zSize, islandSeed));
+    }
+
+    @Override
+    public byte[] generateCompact(final int xSize, final int zSize, final long islandSeed) {
+        if (ICLogger.isInfoEnabled()) {
+            ICLogger.info("Generating island from ConstantIslandGenerator with xSize: %d, zSize: %d, islandSeed: %d, biome: %s", xSize, zSize, islandSeed, biome);
+        }
+        final byte[] result = new byte[xSize * zSize];
+        Arrays.fill(result, BiomeCodec.encode(biome));
         return result;
     }
 }
@@ -1,6 +1,7 @@
 package com.github.hoqhuuep.islandcraft.core;
 
 import com.github.hoqhuuep.islandcraft.api.ICBiome;
+import com.github.hoqhuuep.islandcraft.api.ICBiomeSummary;
 import com.github.hoqhuuep.islandcraft.api.ICIsland;
 import com.github.hoqhuuep.islandcraft.api.ICLocation;
 import com.github.hoqhuuep.islandcraft.api.ICRegion;
@@ -8,15 +9,19 @@ import com.github.hoqhuuep.islandcraft.api.IslandGenerator;
 
 public class DefaultIsland implements ICIsland {
     private final IslandCache cache;
+    private final String worldName;
+    private final String generatorDefinition;
     private final IslandGenerator generator;
     private final ICLocation center;
     private final ICRegion innerRegion;
     private final ICRegion outerRegion;
     private final long seed;
 
-    public DefaultIsland(final ICRegion innerRegion, final ICRegion outerRegion, final long seed, final IslandGenerator generator, final IslandCache cache) {
+    public DefaultIsland(final String worldName, final ICRegion innerRegion, final ICRegion outerRegion, final long seed, final String generatorDefinition, final IslandGenerator generator, final IslandCache cache) {
         this.cache = cache;
+        this.worldName = worldName;
         this.seed = seed;
+        this.generatorDefinition = generatorDefinition;
         this.generator = generator;
         final int centerX = (innerRegion.getMin().getX() + innerRegion.getMax().getX()) / 2;
         final int centerZ = (innerRegion.getMin().getZ() + innerRegion.getMax().getZ()) / 2;
@@ -65,16 +70,39 @@ public class DefaultIsland implements ICIsland {
         return cache.biomeChunk(this, relativeX, relativeZ);
     }
 
+    @Override
+    public void getBiomeChunk(final int relativeX, final int relativeZ, final ICBiome[] result) {
+        cache.biomeChunk(this, relativeX, relativeZ, result);
+    }
+
+    @Override
+    public void getBiomeChunkOrdinals(final int relativeX, final int relativeZ, final byte[] result) {
+        cache.biomeChunkOrdinals(this, relativeX, relativeZ, result);
+    }
+
     @Override
     public ICBiome[] getBiomeAll() {
         return cache.biomeAll(this);
     }
 
+    @Override
+    public ICBiomeSummary getBiomeSummary() {
+        return cache.biomeSummary(this);
+    }
+
     @Override
     public IslandGenerator getGenerator() {
         return generator;
     }
 
+    public String getWorldName() {
+        return worldName;
+    }
+
+    public String getGeneratorDefinition() {
+        return generatorDefinition;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -1,23 +1,26 @@
 package com.github.hoqhuuep.islandcraft.core;
 
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang.StringUtils;
 import org.bukkit.configuration.ConfigurationSection;
 
 import com.github.hoqhuuep.islandcraft.api.BiomeDistribution;
+import com.github.hoqhuuep.islandcraft.api.ChunkBiomeDistribution;
 import com.github.hoqhuuep.islandcraft.api.ICBiome;
+import com.github.hoqhuuep.islandcraft.api.ICBiomeSummary;
 import com.github.hoqhuuep.islandcraft.api.ICIsland;
 import com.github.hoqhuuep.islandcraft.api.ICLocation;
 import com.github.hoqhuuep.islandcraft.api.ICRegion;
 import com.github.hoqhuuep.islandcraft.api.ICWorld;
 import com.github.hoqhuuep.islandcraft.api.IslandDistribution;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
 
 public class DefaultWorld implements ICWorld {
@@ -25,11 +28,19 @@ public class DefaultWorld implements ICWorld {
     private final long worldSeed;
     private final IslandDatabase database;
     private final BiomeDistribution ocean;
+    // Null unless the ocean is the same biome everywhere
+    private final ICBiome constantOcean;
+    // Null unless constantOcean is set, one of ORDINAL_CHUNKS
+    private final byte[] oceanChunkOrdinals;
     private final IslandDistribution islandDistribution;
     private final List<String> islandGenerators;
+    // Database IDs of islandGenerators, in the same order
+    private final int[] islandGeneratorIds;
     private final IslandCache cache;
     private final ICClassLoader classLoader;
     private final LoadingCache<ICLocation, ICIsland> databaseCache;
+    // Null unless every database entry for this world has been preloaded
+    private final IslandIndex index;
 
     public DefaultWorld(final String name, final long seed, final IslandDatabase database, final ConfigurationSection config, final IslandCache cache, final ICClassLoader classLoader) {
         this.worldName = name;
@@ -43,6 +54,13 @@ public class DefaultWorld implements ICWorld {
             ICLogger.logger.warning("Default value 'com.github.hoqhuuep.islandcraft.core.ConstantBiomeDistribution DEEP_OCEAN' will be used");
         }
         ocean = classLoader.getBiomeDistribution(config.getString("ocean", "com.github.hoqhuuep.islandcraft.core.ConstantBiomeDistribution DEEP_OCEAN"));
+        if (ocean instanceof ConstantBiomeDistribution) {
+            constantOcean = ((ConstantBiomeDistribution) ocean).getBiome();
+            oceanChunkOrdinals = ORDINAL_CHUNKS[constantOcean.ordinal()];
+        } else {
+            constantOcean = null;
+            oceanChunkOrdinals = null;
+        }
 
         if (!config.contains("island-distribution") || !config.isString("island-distribution")) {
             ICLogger.logger.warning("No string-value for 'worlds." + name + ".island-distribution' found in config.yml");
@@ -59,10 +77,31 @@ public class DefaultWorld implements ICWorld {
             islandGenerators.add("com.github.hoqhuuep.islandcraft.core.EmptyIslandGenerator");
         }
         // Load islandGenerators just to make sure there are no errors
-        for (final String islandGenerator : islandGenerators) {
-            classLoader.getIslandGenerator(islandGenerator);
+        islandGeneratorIds = new int[islandGenerators.size()];
+        for (int i = 0; i < islandGeneratorIds.length; ++i) {
+            islandGeneratorIds[i] = database.getGeneratorId(islandGenerators.get(i));
+            classLoader.getIslandGenerator(islandGeneratorIds[i], islandGenerators.get(i));
+        }
+        if (!config.contains("preload-islands") || !config.isBoolean("preload-islands")) {
+            ICLogger.logger.warning("No boolean-value for 'worlds." + name + ".preload-islands' found in config.yml");
+            ICLogger.logger.warning("Default value 'true' will be used");
+        }
+        index = config.getBoolean("preload-islands", true) ? preloadIslands() : null;
+        databaseCache = cache.newDatabaseCacheBuilder().build(new DatabaseCacheLoader());
+    }
+
+    private IslandIndex preloadIslands() {
+        final IslandIndex result = new IslandIndex();
+        try {
+            database.loadAll(worldName, result);
+        } catch (final Exception e) {
+            ICLogger.logger.warning("Error preloading islands from database for world with name: " + worldName);
+            ICLogger.logger.warning("Islands will be loaded one at a time instead");
+            ICLogger.logger.warning("Exception message: " + e.getMessage());
+            return null;
         }
-        databaseCache = CacheBuilder.newBuilder().expireAfterAccess(30, TimeUnit.SECONDS).build(new DatabaseCacheLoader());
+        ICLogger.info("Preloaded %d islands for world with name: %s", result.size(), worldName);
+        return result;
     }
 
     @Override
@@ -101,29 +140,264 @@ public class DefaultWorld implements ICWorld {
 
     @Override
     public ICBiome[] getBiomeChunk(int x, int z) {
+        final ICBiome[] result = new ICBiome[256];
+        getBiomeChunk(x, z, result);
+        return result;
+    }
+
+    @Override
+    public void getBiomeChunk(final int x, final int z, final ICBiome[] result) {
         final ICIsland island = getIslandAt(x, z);
         if (island == null) {
-            final ICBiome[] chunk = new ICBiome[256];
-            for (int i = 0; i < 256; ++i) {
-                chunk[i] = ocean.biomeAt(x + i % 16, z + i / 16, worldSeed);
+            oceanChunk(x, z, result);
+            return;
+        }
+        final ICLocation origin = island.getInnerRegion().getMin();
+        final byte uniform = uniformOrdinal(island, x - origin.getX(), z - origin.getZ());
+        if (uniform == BiomeCodec.NONE) {
+            oceanChunk(x, z, result);
+            return;
+        }
+        if (uniform != ICBiomeSummary.MIXED) {
+            System.arraycopy(BIOME_CHUNKS[uniform], 0, result, 0, 256);
+            return;
+        }
+        island.getBiomeChunk(x - origin.getX(), z - origin.getZ(), result);
+        for (int i = 0; i < 256; ++i) {
+            if (result[i] == null) {
+                result[i] = constantOcean != null ? constantOcean : ocean.biomeAt(x + i % 16, z + i / 16, worldSeed);
+            }
+        }
+    }
+
+    @Override
+    public void getBiomeChunkOrdinals(final int x, final int z, final byte[] result) {
+        final ICIsland island = getIslandAt(x, z);
+        if (island == null) {
+            if (oceanChunkOrdinals != null) {
+                System.arraycopy(oceanChunkOrdinals, 0, result, 0, 256);
+            } else {
+                final ICBiome[] biomes = new ICBiome[256];
+                oceanChunk(x, z, biomes);
+                for (int i = 0; i < 256; ++i) {
+                    result[i] = BiomeCodec.encode(biomes[i]);
+                }
             }
-            return chunk;
+            return;
         }
         final ICLocation origin = island.getInnerRegion().getMin();
-        final ICBiome[] biomes = island.getBiomeChunk(x - origin.getX(), z - origin.getZ());
-        if (biomes == null) {
-            final ICBiome[] chunk = new ICBiome[256];
+        final byte uniform = uniformOrdinal(island, x - origin.getX(), z - origin.getZ());
+        if (uniform != ICBiomeSummary.MIXED && (uniform != BiomeCodec.NONE || oceanChunkOrdinals != null)) {
+            System.arraycopy(uniform == BiomeCodec.NONE ? oceanChunkOrdinals : ORDINAL_CHUNKS[uniform], 0, result, 0, 256);
+            return;
+        }
+        island.getBiomeChunkOrdinals(x - origin.getX(), z - origin.getZ(), result);
+        for (int i = 0; i < 256; ++i) {
+            if (result[i] == BiomeCodec.NONE) {
+                result[i] = constantOcean != null ? oceanChunkOrdinals[i] : BiomeCodec.encode(ocean.biomeAt(x + i % 16, z + i / 16, worldSeed));
+            }
+        }
+    }
+
+    // Chunks filled with each biome, never modified or handed out
+    private static final ICBiome[][] BIOME_CHUNKS;
+    private static final byte[][] ORDINAL_CHUNKS;
+
+    static {
+        final ICBiome[] biomes = ICBiome.values();
+        BIOME_CHUNKS = new ICBiome[biomes.length][256];
+        ORDINAL_CHUNKS = new byte[biomes.length][256];
+        for (final ICBiome biome : biomes) {
+            Arrays.fill(BIOME_CHUNKS[biome.ordinal()], biome);
+            Arrays.fill(ORDINAL_CHUNKS[biome.ordinal()], BiomeCodec.encode(biome));
+        }
+    }
+
+    /**
+     * Returns the ordinal of the only biome in the island's chunk at the
+     * given position, BiomeCodec.NONE if the chunk is all ocean, or
+     * ICBiomeSummary.MIXED. Only the island's summary is needed, not the
+     * island itself.
+     */
+    private static byte uniformOrdinal(final ICIsland island, final int relativeX, final int relativeZ) {
+        if (((relativeX | relativeZ) & 15) != 0) {
+            // Not aligned with the summary's tiles
+            return ICBiomeSummary.MIXED;
+        }
+        return island.getBiomeSummary().getTileOrdinal(relativeX / ICBiomeSummary.TILE_SIZE, relativeZ / ICBiomeSummary.TILE_SIZE);
+    }
+
+    private void oceanChunk(final int x, final int z, final ICBiome[] result) {
+        if (ocean instanceof ChunkBiomeDistribution) {
+            ((ChunkBiomeDistribution) ocean).biomeChunk(x, z, worldSeed, result);
+        } else {
             for (int i = 0; i < 256; ++i) {
-                chunk[i] = ocean.biomeAt(x + i % 16, z + i / 16, worldSeed);
+                result[i] = ocean.biomeAt(x + i % 16, z + i / 16, worldSeed);
             }
-            return chunk;
         }
-        for (int i = 0; i < 256; ++i) {
-            if (biomes[i] == null) {
-                biomes[i] = ocean.biomeAt(x + i % 16, z + i / 16, worldSeed);
+    }
+
+    private static final byte UNSET = -2;
+
+    @Override
+    public void getBiomeSamples(final int xMin, final int zMin, final int xSize, final int zSize, final int scale, final byte[] result) {
+        final int length = xSize * zSize;
+        Arrays.fill(result, 0, length, UNSET);
+        for (int i = 0; i < length; ++i) {
+            if (result[i] != UNSET) {
+                continue;
+            }
+            final int x = xMin + (i % xSize) * scale;
+            final int z = zMin + (i / xSize) * scale;
+            final ICIsland island = getIslandAt(x, z);
+            if (island == null) {
+                result[i] = BiomeCodec.encode(ocean.biomeAt(x, z, worldSeed));
+                continue;
+            }
+            // Fill every sample which falls inside this island at once
+            final ICLocation min = island.getInnerRegion().getMin();
+            final ICLocation max = island.getInnerRegion().getMax();
+            final int xStart = i % xSize;
+            final int xEnd = Math.min(xSize, ceilDiv(max.getX() - xMin, scale));
+            final int zStart = i / xSize;
+            final int zEnd = Math.min(zSize, ceilDiv(max.getZ() - zMin, scale));
+            final IslandGrid biomes = cache.biomeOrdinals(island);
+            try {
+                for (int sampleZ = zStart; sampleZ < zEnd; ++sampleZ) {
+                    final int blockZ = zMin + sampleZ * scale;
+                    for (int sampleX = xStart; sampleX < xEnd; ++sampleX) {
+                        final int blockX = xMin + sampleX * scale;
+                        final byte biome = biomes.get(blockX - min.getX(), blockZ - min.getZ());
+                        if (biome == BiomeCodec.NONE) {
+                            result[sampleX + sampleZ * xSize] = BiomeCodec.encode(ocean.biomeAt(blockX, blockZ, worldSeed));
+                        } else {
+                            result[sampleX + sampleZ * xSize] = biome;
+                        }
+                    }
+                }
+            } finally {
+                biomes.release();
+            }
+        }
+    }
+
+    @Override
+    public boolean containsOnlyBiomes(final int xMin, final int zMin, final int xSize, final int zSize, final int scale, final long biomes) {
+        return matchBiomes(xMin, zMin, xSize, zSize, scale, biomes, null) == xSize * zSize;
+    }
+
+    @Override
+    public int findBiomes(final int xMin, final int zMin, final int xSize, final int zSize, final int scale, final long biomes, final boolean[] result) {
+        return matchBiomes(xMin, zMin, xSize, zSize, scale, biomes, result);
+    }
+
+    /**
+     * Counts the sample points which have one of the given biomes, marking them
+     * in result. If result is null, stops counting at the first sample point
+     * which does not.
+     */
+    private int matchBiomes(final int xMin, final int zMin, final int xSize, final int zSize, final int scale, final long biomes, final boolean[] result) {
+        final long islandBiomes = biomes & ~ICBiomeSummary.NO_BIOME;
+        // Tiles containing only these biomes match entirely
+        final long allMatch;
+        // Tiles containing none of these biomes do not match at all
+        final long anyMatch;
+        if (constantOcean == null) {
+            allMatch = islandBiomes;
+            anyMatch = islandBiomes | ICBiomeSummary.NO_BIOME;
+        } else if ((biomes & ICBiomeSummary.mask(constantOcean)) != 0) {
+            allMatch = islandBiomes | ICBiomeSummary.NO_BIOME;
+            anyMatch = allMatch;
+        } else {
+            allMatch = islandBiomes;
+            anyMatch = islandBiomes;
+        }
+        ICIsland island = null;
+        ICLocation min = null;
+        ICLocation max = null;
+        ICBiomeSummary summary = null;
+        IslandGrid ordinals = null;
+        int count = 0;
+        try {
+            for (int sampleZ = 0; sampleZ < zSize; ++sampleZ) {
+                final int z = zMin + sampleZ * scale;
+                for (int sampleX = 0; sampleX < xSize; ++sampleX) {
+                    final int x = xMin + sampleX * scale;
+                    if (island == null || x < min.getX() || x >= max.getX() || z < min.getZ() || z >= max.getZ()) {
+                        island = getIslandAt(x, z);
+                        if (island != null) {
+                            min = island.getInnerRegion().getMin();
+                            max = island.getInnerRegion().getMax();
+                            summary = island.getBiomeSummary();
+                            if (ordinals != null) {
+                                ordinals.release();
+                                ordinals = null;
+                            }
+                        }
+                    }
+                    final boolean match;
+                    if (island == null) {
+                        match = (biomes & ICBiomeSummary.mask(ocean.biomeAt(x, z, worldSeed))) != 0;
+                    } else {
+                        final long tile = summary.getTile((x - min.getX()) / ICBiomeSummary.TILE_SIZE, (z - min.getZ()) / ICBiomeSummary.TILE_SIZE);
+                        if ((tile & ~allMatch) == 0) {
+                            match = true;
+                        } else if ((tile & anyMatch) == 0) {
+                            match = false;
+                        } else {
+                            // Mixed tile, only now look at the island itself
+                            if (ordinals == null) {
+                                ordinals = cache.biomeOrdinals(island);
+                            }
+                            final byte biome = ordinals.get(x - min.getX(), z - min.getZ());
+                            if (biome == BiomeCodec.NONE) {
+                                match = (biomes & ICBiomeSummary.mask(ocean.biomeAt(x, z, worldSeed))) != 0;
+                            } else {
+                                match = (biomes & ICBiomeSummary.maskOrdinal(biome)) != 0;
+                            }
+                        }
+                    }
+                    if (result != null) {
+                        result[sampleX + sampleZ * xSize] = match;
+                    } else if (!match) {
+                        return count;
+                    }
+                    if (match) {
+                        ++count;
+                    }
+                }
+            }
+        } finally {
+            if (ordinals != null) {
+                ordinals.release();
+            }
+        }
+        return count;
+    }
+
+    private static int ceilDiv(final int a, final int b) {
+        // Only used with positive b
+        return a > 0 ? (a + b - 1) / b : -(-a / b);
+    }
+
+    @Override
+    public void getBiomeRegion(final int xMin, final int zMin, final int xSize, final int zSize, final ICBiome[] result) {
+        // Islands are made of whole chunks, so work one chunk at a time
+        final ICBiome[] chunk = new ICBiome[256];
+        final int xMax = xMin + xSize;
+        final int zMax = zMin + zSize;
+        for (int chunkZ = zMin & ~15; chunkZ < zMax; chunkZ += 16) {
+            for (int chunkX = xMin & ~15; chunkX < xMax; chunkX += 16) {
+                getBiomeChunk(chunkX, chunkZ, chunk);
+                final int xStart = Math.max(xMin, chunkX);
+                final int xEnd = Math.min(xMax, chunkX + 16);
+                final int zStart = Math.max(zMin, chunkZ);
+                final int zEnd = Math.min(zMax, chunkZ + 16);
+                for (int z = zStart; z < zEnd; ++z) {
+                    System.arraycopy(chunk, (z - chunkZ) * 16 + xStart - chunkX, result, (z - zMin) * xSize + xStart - xMin, xEnd - xStart);
+                }
             }
         }
-        return biomes;
     }
 
     @Override
@@ -155,27 +429,85 @@ public class DefaultWorld implements ICWorld {
         return islands;
     }
 
+    // Less than the size of any island, so that no island is skipped
+    private static final int ISLAND_SAMPLE_SPACING = 16;
+
+    /**
+     * Returns every island whose inner-region overlaps the given region, in
+     * the order they are first found scanning the region row by row.
+     */
+    public Set<ICIsland> getIslandsIn(final ICRegion region) {
+        final ICLocation min = region.getMin();
+        final ICLocation max = region.getMax();
+        final Set<ICLocation> centers = new LinkedHashSet<ICLocation>();
+        for (int z = min.getZ(); z < max.getZ() + ISLAND_SAMPLE_SPACING; z += ISLAND_SAMPLE_SPACING) {
+            for (int x = min.getX(); x < max.getX() + ISLAND_SAMPLE_SPACING; x += ISLAND_SAMPLE_SPACING) {
+                final ICLocation center = islandDistribution.getCenterAt(Math.min(x, max.getX() - 1), Math.min(z, max.getZ() - 1), worldSeed);
+                if (center != null) {
+                    centers.add(center);
+                }
+            }
+        }
+        final Set<ICIsland> islands = new LinkedHashSet<ICIsland>(centers.size());
+        for (final ICLocation center : centers) {
+            islands.add(databaseCache.getUnchecked(center));
+        }
+        return islands;
+    }
+
+    public CacheStats getDatabaseCacheStats() {
+        return databaseCache.stats();
+    }
+
+    public long getDatabaseCacheSize() {
+        return databaseCache.size();
+    }
+
     private class DatabaseCacheLoader extends CacheLoader<ICLocation, ICIsland> {
         @Override
         public ICIsland load(final ICLocation center) {
             final ICRegion innerRegion = islandDistribution.getInnerRegion(center, worldSeed);
             final ICRegion outerRegion = islandDistribution.getOuterRegion(center, worldSeed);
-            final IslandDatabase.Result fromDatabase = database.load(worldName, center.getX(), center.getZ());
+            final IslandDatabase.Result fromDatabase;
+            // Counted here rather than in each IslandDatabase, so that islands
+            // found in the index are counted too
+            ICEvent.DATABASE_LOAD.record();
+            if (index == null) {
+                fromDatabase = database.load(worldName, center.getX(), center.getZ());
+            } else {
+                // Everything in the database is already in the index
+                fromDatabase = index.get(center.getX(), center.getZ());
+            }
             if (fromDatabase == null) {
+                ICEvent.DATABASE_LOAD_MISS.record();
                 final long islandSeed = pickIslandSeed(center.getX(), center.getZ());
-                final String generator = pickIslandGenerator(islandSeed);
-                database.save(worldName, center.getX(), center.getZ(), islandSeed, generator);
-                return new DefaultIsland(innerRegion, outerRegion, islandSeed, classLoader.getIslandGenerator(generator), cache);
+                final int i = pickIslandGenerator(islandSeed);
+                final String generator = islandGenerators.get(i);
+                final int generatorId = islandGeneratorIds[i];
+                ICEvent.DATABASE_SAVE.record();
+                database.save(worldName, center.getX(), center.getZ(), islandSeed, generatorId);
+                if (index != null) {
+                    index.put(center.getX(), center.getZ(), islandSeed, generatorId);
+                }
+                return new DefaultIsland(worldName, innerRegion, outerRegion, islandSeed, generator, classLoader.getIslandGenerator(generatorId, generator), cache);
+            }
+            final int generatorId = fromDatabase.getGeneratorId();
+            String generator = database.getGenerator(generatorId);
+            if (generator == null) {
+                ICLogger.logger.warning(String.format("No generator with id %d found in database for island at %d, %d in world with name: %s", generatorId, center.getX(), center.getZ(), worldName));
+                ICLogger.logger.warning("Using 'com.github.hoqhuuep.islandcraft.core.EmptyIslandGenerator' instead");
+                generator = "com.github.hoqhuuep.islandcraft.core.EmptyIslandGenerator";
             }
-            return new DefaultIsland(innerRegion, outerRegion, fromDatabase.getIslandSeed(), classLoader.getIslandGenerator(fromDatabase.getGenerator()), cache);
+            return new DefaultIsland(worldName, innerRegion, outerRegion, fromDatabase.getIslandSeed(), generator, classLoader.getIslandGenerator(generatorId, generator), cache);
         }
 
         private long pickIslandSeed(final int centerX, final int centerZ) {
             return new Random(worldSeed ^ ((long) centerX << 24 | centerZ & 0x00FFFFFFL)).nextLong();
         }
 
-        private String pickIslandGenerator(final long islandSeed) {
-            return islandGenerators.get(new Random(islandSeed).nextInt(islandGenerators.size()));
+        // Returns an index into islandGenerators
+        private int pickIslandGenerator(final long islandSeed) {
+            return new Random(islandSeed).nextInt(islandGenerators.size());
         }
     }
 
@@ -0,0 +1,94 @@
+package com.github.hoqhuuep.islandcraft.core;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out direct (off-heap) buffers and keeps released ones for reuse.
+ * Every island in a world is the same size, so buffers are pooled by
+ * capacity and almost every allocation is served from the pool once the
+ * cache is full.
+ */
+public class DirectBufferPool {
+    private final long maximumPooled;
+    private final ConcurrentMap<Integer, Queue<ByteBuffer>> free;
+    private final AtomicLong pooled;
+    private final AtomicLong allocated;
+
+    /**
+     * @param maximumPooled
+     *            number of bytes of released buffers to keep for reuse, any
+     *            more are left for the garbage collector
+     */
+    public DirectBufferPool(final long maximumPooled) {
+        this.maximumPooled = maximumPooled;
+        free = new ConcurrentHashMap<Integer, Queue<ByteBuffer>>();
+        pooled = new AtomicLong();
+        allocated = new AtomicLong();
+    }
+
+    public ByteBuffer acquire(final int capacity) {
+        final Queue<ByteBuffer> queue = free.get(capacity);
+        if (queue != null) {
+            final ByteBuffer buffer = queue.poll();
+            if (buffer != null) {
+                pooled.addAndGet(-capacity);
+                buffer.clear();
+                return buffer;
+            }
+        }
+        allocated.addAndGet(capacity);
+        return ByteBuffer.allocateDirect(capacity);
+    }
+
+    /**
+     * Returns a buffer from acquire to the pool. The buffer must not be used
+     * afterwards.
+     */
+    public void release(final ByteBuffer buffer) {
+        final int capacity = buffer.capacity();
+        if (pooled.addAndGet(capacity) > maximumPooled) {
+            pooled.addAndGet(-capacity);
+            allocated.addAndGet(-capacity);
+            return;
+        }
+        Queue<ByteBuffer> queue = free.get(capacity);
+        if (queue == null) {
+            final Queue<ByteBuffer> newQueue = new ConcurrentLinkedQueue<ByteBuffer>();
+            queue = free.putIfAbsent(capacity, newQueue);
+            if (queue == null) {
+                queue = newQueue;
+            }
+        }
+        queue.offer(buffer);
+    }
+
+    /**
+     * Drops every pooled buffer.
+     */
+    public void clear() {
+        for (final Queue<ByteBuffer> queue : free.values()) {
+            ByteBuffer buffer;
+            while ((buffer = queue.poll()) != null) {
+                pooled.addAndGet(-buffer.capacity());
+                allocated.addAndGet(-buffer.capacity());
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes of direct memory held, whether in use or
+     * pooled.
+     */
+    public long getAllocated() {
+        return allocated.get();
+    }
+
+    public long getPooled() {
+        return pooled.get();
+    }
+}
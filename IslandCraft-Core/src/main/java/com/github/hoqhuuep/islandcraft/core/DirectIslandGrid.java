@@ -0,0 +1,101 @@
+package com.github.hoqhuuep.islandcraft.core;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.hoqhuuep.islandcraft.api.ICBiome;
+
+/**
+ * Stores one byte per block in a pooled direct buffer, outside of the Java
+ * heap. Long-lived islands would otherwise be promoted to the old generation
+ * only to die when they expire, leaving garbage for full collections. The
+ * buffer goes back to the pool when the last reference is released, so
+ * readers must retain the grid first.
+ */
+public class DirectIslandGrid extends IslandGrid {
+    // Buffer object plus the fields of this object, the blocks themselves are
+    // counted as well so that maximum-weight still limits memory use
+    private static final int OVERHEAD = 96;
+    private final DirectBufferPool pool;
+    private final ByteBuffer ordinals;
+    // Starts at 1 for the cache's own reference
+    private final AtomicInteger references;
+
+    /**
+     * @param ordinals
+     *            a byte[xSize * zSize] such that each element is at index
+     *            [x + z * xSize], which is copied
+     */
+    public DirectIslandGrid(final int xSize, final int zSize, final byte[] ordinals, final DirectBufferPool pool) {
+        super(xSize, zSize);
+        checkLength(xSize, zSize, ordinals);
+        this.pool = pool;
+        this.ordinals = pool.acquire(ordinals.length);
+        this.ordinals.put(ordinals);
+        references = new AtomicInteger(1);
+    }
+
+    @Override
+    public boolean retain() {
+        while (true) {
+            final int count = references.get();
+            if (count <= 0) {
+                return false;
+            }
+            if (references.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void release() {
+        if (references.decrementAndGet() == 0) {
+            pool.release(ordinals);
+        }
+    }
+
+    @Override
+    public void getChunk(final int relativeX, final int relativeZ, final ICBiome[] result) {
+        checkChunk(relativeX, relativeZ);
+        int offset = relativeZ * xSize + relativeX;
+        int i = 0;
+        for (int z = 0; z < CHUNK_SIZE; ++z) {
+            for (int x = 0; x < CHUNK_SIZE; ++x) {
+                result[i++] = BiomeCodec.decode(ordinals.get(offset + x));
+            }
+            offset += xSize;
+        }
+    }
+
+    @Override
+    public byte[] toArray() {
+        final byte[] result = new byte[xSize * zSize];
+        final ByteBuffer view = ordinals.duplicate();
+        view.clear();
+        view.get(result);
+        return result;
+    }
+
+    @Override
+    public int getWeight() {
+        return OVERHEAD + xSize * zSize;
+    }
+
+    @Override
+    protected byte getUnchecked(final int x, final int z) {
+        return ordinals.get(z * xSize + x);
+    }
+
+    @Override
+    protected void copyChunk(final int relativeX, final int relativeZ, final byte[] result) {
+        // A duplicate has its own position, so readers do not interfere
+        final ByteBuffer view = ordinals.duplicate();
+        int offset = relativeZ * xSize + relativeX;
+        for (int z = 0; z < CHUNK_SIZE; ++z) {
+            view.position(offset);
+            view.get(result, z * CHUNK_SIZE, CHUNK_SIZE);
+            offset += xSize;
+        }
+    }
+}
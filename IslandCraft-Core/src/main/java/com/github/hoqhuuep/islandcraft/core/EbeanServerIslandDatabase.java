@@ -1,50 +1,276 @@
 package com.github.hoqhuuep.islandcraft.core;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.persistence.Column;
 import javax.persistence.Embeddable;
 import javax.persistence.EmbeddedId;
 import javax.persistence.Entity;
+import javax.persistence.Id;
 import javax.persistence.Table;
 
 import com.avaje.ebean.EbeanServer;
+import com.avaje.ebean.QueryResultVisitor;
+import com.avaje.ebean.Transaction;
 
 public class EbeanServerIslandDatabase implements IslandDatabase {
+    private static final int COPY_BATCH_SIZE = 1024;
     private final EbeanServer ebeanServer;
+    private final GeneratorTable generators;
 
     public EbeanServerIslandDatabase(final EbeanServer ebeanServer) {
         this.ebeanServer = ebeanServer;
+        generators = new GeneratorTable();
+        for (final GeneratorBean bean : ebeanServer.find(GeneratorBean.class).findList()) {
+            generators.put(bean.getGeneratorId(), bean.getGenerator());
+        }
+        upgrade();
+    }
+
+    @Override
+    public synchronized int getGeneratorId(final String generator) {
+        final int existing = generators.getId(generator);
+        if (existing != GeneratorTable.NOT_FOUND) {
+            return existing;
+        }
+        final int generatorId = generators.nextId();
+        ICLogger.info("Saving GeneratorBean to database with id: %d, generator: %s", generatorId, generator);
+        ebeanServer.save(new GeneratorBean(generator, generatorId));
+        generators.put(generatorId, generator);
+        return generatorId;
     }
 
     @Override
-    public void save(final String worldName, final int centerX, final int centerZ, final long islandSeed, final String generator) {
-        ICLogger.logger.info(String.format("Saving IslandBean to database with worldName: %s, centerX: %d, centerZ: %d, islandSeed: %d, generator: %s", worldName, centerX, centerZ, islandSeed, generator));
-        final IslandBean bean = new IslandBean(new IslandPK(worldName, centerX, centerZ), islandSeed, generator);
+    public String getGenerator(final int generatorId) {
+        return generators.get(generatorId);
+    }
+
+    @Override
+    public void save(final String worldName, final int centerX, final int centerZ, final long islandSeed, final int generatorId) {
+        if (ICLogger.isInfoEnabled()) {
+            ICLogger.info("Saving IslandEntryBean to database with worldName: %s, centerX: %d, centerZ: %d, islandSeed: %d, generatorId: %d", worldName, centerX, centerZ, islandSeed, generatorId);
+        }
+        final IslandEntryBean bean = new IslandEntryBean(new IslandPK(worldName, centerX, centerZ), islandSeed, generatorId);
         ebeanServer.save(bean);
     }
 
+    @Override
+    public void saveAll(final List<Entry> entries) {
+        ICLogger.info("Saving %d IslandEntryBeans to database in one transaction", entries.size());
+        final Transaction transaction = ebeanServer.beginTransaction();
+        try {
+            // Send the inserts to the database together
+            transaction.setBatchMode(true);
+            for (final Entry entry : entries) {
+                final IslandPK pk = new IslandPK(entry.getWorldName(), entry.getCenterX(), entry.getCenterZ());
+                ebeanServer.save(new IslandEntryBean(pk, entry.getIslandSeed(), entry.getGeneratorId()));
+            }
+            transaction.commit();
+        } finally {
+            transaction.end();
+        }
+    }
+
     @Override
     public Result load(final String worldName, final int centerX, final int centerZ) {
-        ICLogger.logger.info(String.format("Loading IslandBean from database with worldName: %s, centerX: %d, centerZ: %d", worldName, centerX, centerZ));
+        if (ICLogger.isInfoEnabled()) {
+            ICLogger.info("Loading IslandEntryBean from database with worldName: %s, centerX: %d, centerZ: %d", worldName, centerX, centerZ);
+        }
         final IslandPK pk = new IslandPK(worldName, centerX, centerZ);
-        final IslandBean bean = ebeanServer.find(IslandBean.class, pk);
+        final IslandEntryBean bean = ebeanServer.find(IslandEntryBean.class, pk);
         if (bean == null) {
-            ICLogger.logger.info("Result is null");
+            if (ICLogger.isInfoEnabled()) {
+                ICLogger.info("Result is null");
+            }
             return null;
         }
-        ICLogger.logger.info(String.format("Result has islandSeed: %d, generator: %s", bean.getIslandSeed(), bean.getGenerator()));
-        return new Result(bean.getIslandSeed(), bean.getGenerator());
+        if (ICLogger.isInfoEnabled()) {
+            ICLogger.info("Result has islandSeed: %d, generatorId: %d", bean.getIslandSeed(), bean.getGeneratorId());
+        }
+        return new Result(bean.getIslandSeed(), bean.getGeneratorId());
+    }
+
+    @Override
+    public void loadAll(final String worldName, final IslandIndex index) {
+        ICLogger.logger.info("Loading all IslandEntryBeans from database with worldName: " + worldName);
+        // Visit rather than list so that only one bean is held at a time
+        ebeanServer.find(IslandEntryBean.class).where().ieq("world_name", worldName).findVisit(new QueryResultVisitor<IslandEntryBean>() {
+            @Override
+            public boolean accept(final IslandEntryBean bean) {
+                index.put(bean.getId().getCenterX(), bean.getId().getCenterZ(), bean.getIslandSeed(), bean.getGeneratorId());
+                return true;
+            }
+        });
+        ICLogger.logger.info("Result has size: " + index.size());
+    }
+
+    /**
+     * Copies every entry of every world into the given database, in batches.
+     * Generator IDs are translated to the target database's IDs.
+     * 
+     * @return the number of entries copied
+     */
+    public int copyTo(final IslandDatabase target) {
+        ICLogger.logger.info("Copying all IslandEntryBeans from database");
+        final List<Entry> batch = new ArrayList<Entry>(COPY_BATCH_SIZE);
+        final Map<Integer, Integer> targetIds = new HashMap<Integer, Integer>();
+        final int[] count = { 0 };
+        ebeanServer.find(IslandEntryBean.class).findVisit(new QueryResultVisitor<IslandEntryBean>() {
+            @Override
+            public boolean accept(final IslandEntryBean bean) {
+                Integer targetId = targetIds.get(bean.getGeneratorId());
+                if (targetId == null) {
+                    targetId = target.getGeneratorId(getGenerator(bean.getGeneratorId()));
+                    targetIds.put(bean.getGeneratorId(), targetId);
+                }
+                final IslandPK pk = bean.getId();
+                batch.add(new Entry(pk.getWorldName(), pk.getCenterX(), pk.getCenterZ(), bean.getIslandSeed(), targetId));
+                if (batch.size() == COPY_BATCH_SIZE) {
+                    target.saveAll(batch);
+                    count[0] += batch.size();
+                    batch.clear();
+                }
+                return true;
+            }
+        });
+        if (!batch.isEmpty()) {
+            target.saveAll(batch);
+            count[0] += batch.size();
+        }
+        ICLogger.logger.info("Copied IslandEntryBeans: " + count[0]);
+        return count[0];
     }
 
     @Override
     public boolean isEmpty(final String worldName) {
         ICLogger.logger.info("Checking if world contains any islands with worldName: " + worldName);
-        boolean result = ebeanServer.find(IslandBean.class).where().ieq("world_name", worldName).findRowCount() == 0;
+        boolean result = ebeanServer.find(IslandEntryBean.class).where().ieq("world_name", worldName).findRowCount() == 0;
         ICLogger.logger.info("Result is: " + result);
         return result;
     }
 
+    // Copies islands saved by older versions, which stored the full generator
+    // definition with every island, into the new table. The new table is only
+    // looked at to decide whether to upgrade, so the copy is done in a single
+    // transaction, otherwise a partial copy would never be finished
+    private void upgrade() {
+        if (ebeanServer.find(IslandEntryBean.class).findRowCount() != 0 || ebeanServer.find(IslandBean.class).findRowCount() == 0) {
+            return;
+        }
+        ICLogger.logger.warning("Upgrading islands in database to use generator IDs, this may take a while");
+        int count = 0;
+        final Transaction transaction = ebeanServer.beginTransaction();
+        try {
+            transaction.setBatchMode(true);
+            transaction.setBatchSize(COPY_BATCH_SIZE);
+            // Read a page at a time rather than visit, so that no result set
+            // is open on the connection while the copies are being written
+            while (true) {
+                final List<IslandBean> page = ebeanServer.find(IslandBean.class).orderBy("id.worldName, id.centerX, id.centerZ").setFirstRow(count).setMaxRows(COPY_BATCH_SIZE).findList();
+                for (final IslandBean bean : page) {
+                    ebeanServer.save(new IslandEntryBean(bean.getId(), bean.getIslandSeed(), getGeneratorId(bean.getGenerator())));
+                }
+                count += page.size();
+                if (page.size() < COPY_BATCH_SIZE) {
+                    break;
+                }
+            }
+            transaction.commit();
+        } finally {
+            transaction.end();
+        }
+        ICLogger.logger.warning(String.format("Upgraded %d islands using %d generators", count, generators.size()));
+    }
+
+    @Entity
+    @Table(name = "islandcraft_island")
+    public static class IslandEntryBean {
+        @EmbeddedId
+        private IslandPK id;
+        @Column(name = "island_seed")
+        private long islandSeed;
+        @Column(name = "generator_id")
+        private int generatorId;
+
+        public IslandEntryBean() {
+            // Default constructor
+        }
+
+        public IslandEntryBean(final IslandPK id, final long islandSeed, final int generatorId) {
+            this.id = id;
+            this.islandSeed = islandSeed;
+            this.generatorId = generatorId;
+        }
+
+        public IslandPK getId() {
+            return id;
+        }
+
+        public long getIslandSeed() {
+            return islandSeed;
+        }
+
+        public int getGeneratorId() {
+            return generatorId;
+        }
+
+        public void setId(final IslandPK id) {
+            this.id = id;
+        }
+
+        public void setIslandSeed(final long islandSeed) {
+            this.islandSeed = islandSeed;
+        }
+
+        public void setGeneratorId(final int generatorId) {
+            this.generatorId = generatorId;
+        }
+    }
+
+    @Entity
+    @Table(name = "islandcraft_generator")
+    public static class GeneratorBean {
+        // The definition rather than the ID is the key, so that Ebean never
+        // tries to generate the ID itself
+        @Id
+        @Column(name = "generator")
+        private String generator;
+        @Column(name = "generator_id")
+        private int generatorId;
+
+        public GeneratorBean() {
+            // Default constructor
+        }
+
+        public GeneratorBean(final String generator, final int generatorId) {
+            this.generator = generator;
+            this.generatorId = generatorId;
+        }
+
+        public String getGenerator() {
+            return generator;
+        }
+
+        public int getGeneratorId() {
+            return generatorId;
+        }
+
+        public void setGenerator(final String generator) {
+            this.generator = generator;
+        }
+
+        public void setGeneratorId(final int generatorId) {
+            this.generatorId = generatorId;
+        }
+    }
+
+    /**
+     * Islands saved by older versions, only read to upgrade them.
+     */
     @Entity
     @Table(name = "islandcraft_core")
     public static class IslandBean {
@@ -4,6 +4,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.List;
 
+import javax.persistence.Entity;
 import javax.persistence.PersistenceException;
 
 import org.bukkit.configuration.ConfigurationSection;
@@ -56,19 +57,30 @@ public class EbeanServerUtil {
         Thread.currentThread().setContextClassLoader(classLoader);
 
         // Hack to ensure database exists
-        try {
-            ebeanServer.find(classes.get(0)).findRowCount();
-        } catch (final PersistenceException e) {
-            createDdl(ebeanServer);
+        for (final Class<?> c : classes) {
+            if (c.isAnnotationPresent(Entity.class)) {
+                try {
+                    ebeanServer.find(c).findRowCount();
+                } catch (final PersistenceException e) {
+                    // Tables added by a newer version, existing tables are
+                    // left as they are
+                    createDdl(ebeanServer, true);
+                    break;
+                }
+            }
         }
 
         return ebeanServer;
     }
 
     public static void createDdl(final EbeanServer ebeanServer) {
+        createDdl(ebeanServer, false);
+    }
+
+    private static void createDdl(final EbeanServer ebeanServer, final boolean expectErrors) {
         final SpiEbeanServer spiEbeanServer = (SpiEbeanServer) ebeanServer;
         final DdlGenerator ddlGenerator = spiEbeanServer.getDdlGenerator();
-        ddlGenerator.runScript(false, ddlGenerator.generateCreateDdl());
+        ddlGenerator.runScript(expectErrors, ddlGenerator.generateCreateDdl());
     }
 
     public static void dropDdl(final EbeanServer ebeanServer) {
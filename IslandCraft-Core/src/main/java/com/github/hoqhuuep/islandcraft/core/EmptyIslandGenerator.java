@@ -1,11 +1,13 @@
 package com.github.hoqhuuep.islandcraft.core;
 
+import java.util.Arrays;
+
 import org.apache.commons.lang.StringUtils;
 
+import com.github.hoqhuuep.islandcraft.api.CompactIslandGenerator;
 import com.github.hoqhuuep.islandcraft.api.ICBiome;
-import com.github.hoqhuuep.islandcraft.api.IslandGenerator;
 
-public class EmptyIslandGenerator implements IslandGenerator {
+public class EmptyIslandGenerator implements CompactIslandGenerator {
     public EmptyIslandGenerator(final String[] args) {
         ICLogger.logger.info("Creating EmptyIslandGenerator with args: " + StringUtils.join(args, " "));
         if (args.length != 0) {
@@ -16,7 +18,19 @@ public class EmptyIslandGenerator implements IslandGenerator {
 
     @Override
     public ICBiome[] generate(final int xSize, final int zSize, final long islandSeed) {
-        ICLogger.logger.info(String.format("Generating island from EmptyIslandGenerator with xSize: %d, zSize: %d, islandSeed: %d", xSize, zSize, islandSeed));
+        if (ICLogger.isInfoEnabled()) {
+            ICLogger.info("Generating island from EmptyIslandGenerator with xSize: %d, zSize: %d, islandSeed: %d", xSize, zSize, islandSeed);
+        }
         return new ICBiome[xSize * zSize];
     }
+
+    @Override
+    public byte[] generateCompact(final int xSize, final int zSize, final long islandSeed) {
+        if (ICLogger.isInfoEnabled()) {
+            ICLogger.info("Generating island from EmptyIslandGenerator with xSize: %d, zSize: %d, islandSeed: %d", xSize, zSize, islandSeed);
+        }
+        final byte[] result = new byte[xSize * zSize];
+        Arrays.fill(result, BiomeCodec.NONE);
+        return result;
+    }
 }
@@ -0,0 +1,359 @@
+package com.github.hoqhuuep.islandcraft.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Stores islands in one append-only file per world, and generator definitions
+ * in one more, without needing an SQL database. Each file is read once when
+ * it is first used and kept in memory. Every record carries its length and a
+ * CRC32. A record cut short by a crash is detected when the file is next read,
+ * and the file is backed up and cut off before it. A whole record which fails
+ * its CRC32 is skipped, keeping every record after it.
+ */
+public class FileIslandDatabase implements IslandDatabase {
+    private static final int ISLAND_MAGIC = 0x49434953; // "ICIS"
+    private static final int GENERATOR_MAGIC = 0x49434753; // "ICGS"
+    private static final int VERSION = 2;
+    // centerX, centerZ, islandSeed, generatorId
+    private static final int ISLAND_SIZE = 4 + 4 + 8 + 4;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private final File directory;
+    private final Map<String, WorldFile> worlds;
+    private GeneratorFile generators;
+    private boolean closed;
+
+    public FileIslandDatabase(final File directory) {
+        this.directory = directory;
+        worlds = new HashMap<String, WorldFile>();
+    }
+
+    @Override
+    public int getGeneratorId(final String generator) {
+        return getGenerators().getId(generator);
+    }
+
+    @Override
+    public String getGenerator(final int generatorId) {
+        return getGenerators().table.get(generatorId);
+    }
+
+    @Override
+    public void save(final String worldName, final int centerX, final int centerZ, final long islandSeed, final int generatorId) {
+        saveAll(Collections.singletonList(new Entry(worldName, centerX, centerZ, islandSeed, generatorId)));
+    }
+
+    @Override
+    public void saveAll(final List<Entry> entries) {
+        final Map<String, List<Entry>> byWorld = new HashMap<String, List<Entry>>();
+        for (final Entry entry : entries) {
+            List<Entry> worldEntries = byWorld.get(entry.getWorldName());
+            if (worldEntries == null) {
+                worldEntries = new ArrayList<Entry>();
+                byWorld.put(entry.getWorldName(), worldEntries);
+            }
+            worldEntries.add(entry);
+        }
+        for (final Map.Entry<String, List<Entry>> worldEntries : byWorld.entrySet()) {
+            getWorld(worldEntries.getKey()).append(worldEntries.getValue());
+        }
+    }
+
+    @Override
+    public Result load(final String worldName, final int centerX, final int centerZ) {
+        return getWorld(worldName).index.get(centerX, centerZ);
+    }
+
+    @Override
+    public void loadAll(final String worldName, final IslandIndex index) {
+        index.putAll(getWorld(worldName).index);
+    }
+
+    @Override
+    public boolean isEmpty(final String worldName) {
+        return getWorld(worldName).index.size() == 0;
+    }
+
+    public synchronized void close() {
+        closed = true;
+        for (final WorldFile world : worlds.values()) {
+            world.close();
+        }
+        worlds.clear();
+        if (generators != null) {
+            generators.close();
+            generators = null;
+        }
+    }
+
+    private synchronized GeneratorFile getGenerators() {
+        checkOpen();
+        if (generators == null) {
+            final File file = new File(directory, "generators");
+            try {
+                generators = new GeneratorFile(file);
+            } catch (final IOException e) {
+                throw new RuntimeException("Could not open generator file " + file, e);
+            }
+        }
+        return generators;
+    }
+
+    private synchronized WorldFile getWorld(final String worldName) {
+        checkOpen();
+        WorldFile world = worlds.get(worldName);
+        if (world == null) {
+            final File file = new File(directory, worldName + ".islands");
+            try {
+                world = new WorldFile(file);
+            } catch (final IOException e) {
+                throw new RuntimeException("Could not open island file " + file, e);
+            }
+            worlds.put(worldName, world);
+        }
+        return world;
+    }
+
+    // Tasks still running when the plugin is disabled must not open the files
+    // again after close
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Island database in " + directory + " is closed");
+        }
+    }
+
+    private static class WorldFile extends RecordFile {
+        private final IslandIndex index;
+
+        public WorldFile(final File file) throws IOException {
+            this(file, new IslandIndex());
+        }
+
+        private WorldFile(final File file, final IslandIndex index) throws IOException {
+            super(file, ISLAND_MAGIC, new RecordVisitor() {
+                @Override
+                public void visit(final ByteBuffer record) {
+                    index.put(record.getInt(), record.getInt(), record.getLong(), record.getInt());
+                }
+            });
+            this.index = index;
+            ICLogger.info("Loaded %d islands from %s", index.size(), file);
+        }
+
+        public synchronized void append(final List<Entry> entries) {
+            final List<ByteBuffer> records = new ArrayList<ByteBuffer>(entries.size());
+            for (final Entry entry : entries) {
+                final ByteBuffer record = ByteBuffer.allocate(ISLAND_SIZE);
+                record.putInt(entry.getCenterX());
+                record.putInt(entry.getCenterZ());
+                record.putLong(entry.getIslandSeed());
+                record.putInt(entry.getGeneratorId());
+                records.add(record);
+            }
+            appendRecords(records);
+            for (final Entry entry : entries) {
+                index.put(entry.getCenterX(), entry.getCenterZ(), entry.getIslandSeed(), entry.getGeneratorId());
+            }
+        }
+    }
+
+    private static class GeneratorFile extends RecordFile {
+        private final GeneratorTable table;
+
+        public GeneratorFile(final File file) throws IOException {
+            this(file, new GeneratorTable());
+        }
+
+        private GeneratorFile(final File file, final GeneratorTable table) throws IOException {
+            super(file, GENERATOR_MAGIC, new RecordVisitor() {
+                @Override
+                public void visit(final ByteBuffer record) {
+                    final int generatorId = record.getInt();
+                    table.put(generatorId, new String(record.array(), record.arrayOffset() + record.position(), record.remaining(), UTF_8));
+                }
+            });
+            this.table = table;
+        }
+
+        public synchronized int getId(final String generator) {
+            final int existing = table.getId(generator);
+            if (existing != GeneratorTable.NOT_FOUND) {
+                return existing;
+            }
+            final int generatorId = table.nextId();
+            final byte[] bytes = generator.getBytes(UTF_8);
+            final ByteBuffer record = ByteBuffer.allocate(4 + bytes.length);
+            record.putInt(generatorId);
+            record.put(bytes);
+            appendRecords(Collections.singletonList(record));
+            table.put(generatorId, generator);
+            return generatorId;
+        }
+    }
+
+    private static interface RecordVisitor {
+        void visit(ByteBuffer record);
+    }
+
+    /**
+     * A file of records, each stored as a length, the record itself and a
+     * CRC32 of both.
+     */
+    private static class RecordFile {
+        private static final int HEADER_SIZE = 8;
+        // Length and CRC32
+        private static final int RECORD_OVERHEAD = 2 + 4;
+        protected final File file;
+        private final RandomAccessFile randomAccessFile;
+        private final FileChannel channel;
+        // Position after the last valid record
+        private long end;
+
+        public RecordFile(final File file, final int magic, final RecordVisitor visitor) throws IOException {
+            this.file = file;
+            file.getParentFile().mkdirs();
+            randomAccessFile = new RandomAccessFile(file, "rw");
+            channel = randomAccessFile.getChannel();
+            try {
+                if (channel.size() < HEADER_SIZE) {
+                    final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                    header.putInt(magic);
+                    header.putInt(VERSION);
+                    header.flip();
+                    write(header, 0);
+                    channel.force(true);
+                    end = HEADER_SIZE;
+                } else {
+                    end = read(magic, visitor);
+                }
+            } catch (final IOException e) {
+                randomAccessFile.close();
+                throw e;
+            }
+        }
+
+        private long read(final int magic, final RecordVisitor visitor) throws IOException {
+            // A plain read rather than a memory map, which would stop the
+            // file from being truncated on some platforms
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("IslandCraft file is too large");
+            }
+            final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of IslandCraft file");
+                }
+            }
+            buffer.flip();
+            if (buffer.getInt() != magic) {
+                throw new IOException("Not an IslandCraft file");
+            }
+            if (buffer.getInt() != VERSION) {
+                throw new IOException("Unsupported IslandCraft file version");
+            }
+            final CRC32 crc = new CRC32();
+            byte[] record = new byte[RECORD_OVERHEAD];
+            long valid = HEADER_SIZE;
+            int damaged = 0;
+            while (buffer.remaining() >= RECORD_OVERHEAD) {
+                final int start = buffer.position();
+                final int length = RECORD_OVERHEAD + (buffer.getShort(buffer.position()) & 0xFFFF);
+                if (buffer.remaining() < length) {
+                    break;
+                }
+                if (record.length < length) {
+                    record = new byte[length];
+                }
+                buffer.get(record, 0, length);
+                crc.reset();
+                crc.update(record, 0, length - 4);
+                if ((int) crc.getValue() != ByteBuffer.wrap(record).getInt(length - 4)) {
+                    // The whole record is there, so this is damage rather than
+                    // a torn append, and the records after it are still good
+                    ICLogger.logger.warning(String.format("Skipping damaged record at byte %d of %s", start, file));
+                    ++damaged;
+                } else {
+                    visitor.visit(ByteBuffer.wrap(record, 2, length - RECORD_OVERHEAD).slice());
+                }
+                valid = buffer.position();
+            }
+            if (valid < size) {
+                if (damaged > 0) {
+                    // A damaged length would also leave too few bytes for the
+                    // last record, so cutting the file off could lose good ones
+                    throw new IOException(String.format("%s has %d damaged records and %d bytes of incomplete data at the end, restore it from a backup", file, damaged, size - valid));
+                }
+                // Normally a torn append, but keep a copy in case it was not.
+                // Each copy gets its own name so an earlier one is never lost
+                final File backup = new File(file.getPath() + "." + System.currentTimeMillis() + ".bak");
+                Files.copy(file.toPath(), backup.toPath());
+                ICLogger.logger.warning(String.format("Ignoring %d bytes of incomplete data at the end of %s", size - valid, file));
+                ICLogger.logger.warning("A copy of the file was saved to " + backup);
+                // Otherwise the same bytes would be found again on every start
+                // if later appends are shorter
+                channel.truncate(valid);
+                channel.force(true);
+            }
+            return valid;
+        }
+
+        /**
+         * Appends the given records, each filled up to its position, and waits
+         * until they are on disk.
+         */
+        protected synchronized void appendRecords(final List<ByteBuffer> records) {
+            int size = 0;
+            for (final ByteBuffer record : records) {
+                if (record.position() > 0xFFFF) {
+                    throw new IllegalArgumentException("Record is too long to be saved in " + file);
+                }
+                size += RECORD_OVERHEAD + record.position();
+            }
+            final ByteBuffer buffer = ByteBuffer.allocate(size);
+            final CRC32 crc = new CRC32();
+            for (final ByteBuffer record : records) {
+                final int start = buffer.position();
+                buffer.putShort((short) record.position());
+                buffer.put(record.array(), 0, record.position());
+                crc.reset();
+                crc.update(buffer.array(), start, buffer.position() - start);
+                buffer.putInt((int) crc.getValue());
+            }
+            buffer.flip();
+            try {
+                write(buffer, end);
+                // Records are only visible once they are known to be on disk
+                channel.force(false);
+            } catch (final IOException e) {
+                throw new RuntimeException("Could not append to " + file, e);
+            }
+            end += size;
+        }
+
+        private void write(final ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+
+        public synchronized void close() {
+            try {
+                randomAccessFile.close();
+            } catch (final IOException e) {
+                ICLogger.logger.warning("Could not close " + file + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.hoqhuuep.islandcraft.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory copy of the generator definitions stored in a database, so that
+ * IDs can be turned back into definitions with a plain array lookup.
+ */
+public class GeneratorTable {
+    public static final int NOT_FOUND = -1;
+    private final List<String> generators;
+    private final Map<String, Integer> generatorIds;
+
+    public GeneratorTable() {
+        generators = new ArrayList<String>();
+        generatorIds = new HashMap<String, Integer>();
+    }
+
+    public synchronized int getId(final String generator) {
+        final Integer generatorId = generatorIds.get(generator);
+        if (generatorId == null) {
+            return NOT_FOUND;
+        }
+        return generatorId;
+    }
+
+    public synchronized String get(final int generatorId) {
+        if (generatorId < 0 || generatorId >= generators.size()) {
+            return null;
+        }
+        return generators.get(generatorId);
+    }
+
+    public synchronized void put(final int generatorId, final String generator) {
+        while (generators.size() <= generatorId) {
+            generators.add(null);
+        }
+        generators.set(generatorId, generator);
+        generatorIds.put(generator, generatorId);
+    }
+
+    /**
+     * Returns an ID which has not been used yet.
+     */
+    public synchronized int nextId() {
+        return generators.size();
+    }
+
+    public synchronized int size() {
+        return generatorIds.size();
+    }
+}
@@ -125,12 +125,12 @@ public class HexagonalIslandDistribution implements IslandDistribution {
             // Left
             if (relativeX < magicNumber2) {
                 final int centerX = absoluteHashX - halfIslandSeparation;
-                result.add(getCenter(centerX, centerZ));
+                result.add(new ICLocation(centerX, centerZ));
             }
             // Right
             if (relativeX >= magicNumber1) {
                 final int centerX = absoluteHashX + halfIslandSeparation;
-                result.add(getCenter(centerX, centerZ));
+                result.add(new ICLocation(centerX, centerZ));
             }
         }
         // Middle
@@ -138,10 +138,10 @@ public class HexagonalIslandDistribution implements IslandDistribution {
             // Left
             if (relativeX < oceanSize) {
                 final int centerX = absoluteHashX - islandSeparation;
-                result.add(getCenter(centerX, absoluteHashZ));
+                result.add(new ICLocation(centerX, absoluteHashZ));
             }
             // Right
-            result.add(getCenter(absoluteHashX, absoluteHashZ));
+            result.add(new ICLocation(absoluteHashX, absoluteHashZ));
         }
         // Bottom
         if (relativeZ >= islandSeparation) {
@@ -149,12 +149,12 @@ public class HexagonalIslandDistribution implements IslandDistribution {
             // Left
             if (relativeX < magicNumber2) {
                 final int centerX = absoluteHashX - halfIslandSeparation;
-                result.add(getCenter(centerX, centerZ));
+                result.add(new ICLocation(centerX, centerZ));
             }
             // Right
             if (relativeX >= magicNumber1) {
                 final int centerX = absoluteHashX + halfIslandSeparation;
-                result.add(getCenter(centerX, centerZ));
+                result.add(new ICLocation(centerX, centerZ));
             }
         }
         return result;
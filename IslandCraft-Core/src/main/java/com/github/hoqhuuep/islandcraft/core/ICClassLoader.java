@@ -14,11 +14,14 @@ public class ICClassLoader {
     private final LoadingCache<String, IslandDistribution> islandDistributionCache;
     private final LoadingCache<String, IslandGenerator> islandGeneratorCache;
     private final LoadingCache<String, BiomeDistribution> biomeDistributionCache;
+    // Indexed by database generator ID, replaced rather than modified
+    private volatile IslandGenerator[] islandGeneratorsById;
 
     public ICClassLoader() {
         islandDistributionCache = CacheBuilder.newBuilder().build(new StringConstructorCacheLoader<IslandDistribution>());
         islandGeneratorCache = CacheBuilder.newBuilder().build(new StringConstructorCacheLoader<IslandGenerator>());
         biomeDistributionCache = CacheBuilder.newBuilder().build(new StringConstructorCacheLoader<BiomeDistribution>());
+        islandGeneratorsById = new IslandGenerator[0];
     }
 
     public IslandDistribution getIslandDistribution(final String string) {
@@ -41,6 +44,26 @@ public class ICClassLoader {
         }
     }
 
+    /**
+     * Same as getIslandGenerator(string), but remembers the result by the
+     * generator's database ID so that later calls avoid hashing the string.
+     */
+    public IslandGenerator getIslandGenerator(final int generatorId, final String string) {
+        final IslandGenerator[] byId = islandGeneratorsById;
+        if (generatorId >= 0 && generatorId < byId.length && byId[generatorId] != null) {
+            return byId[generatorId];
+        }
+        final IslandGenerator islandGenerator = getIslandGenerator(string);
+        if (generatorId >= 0) {
+            synchronized (this) {
+                final IslandGenerator[] copy = Arrays.copyOf(islandGeneratorsById, Math.max(islandGeneratorsById.length, generatorId + 1));
+                copy[generatorId] = islandGenerator;
+                islandGeneratorsById = copy;
+            }
+        }
+        return islandGenerator;
+    }
+
     public BiomeDistribution getBiomeDistribution(final String string) {
         try {
             return biomeDistributionCache.getUnchecked(string);
@@ -0,0 +1,26 @@
+package com.github.hoqhuuep.islandcraft.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts events on the generation hot paths, which are too frequent to log
+ * one message each. Counting is a single atomic increment, so it is always
+ * on, whatever the logging level.
+ */
+public enum ICEvent {
+    DATABASE_LOAD, DATABASE_LOAD_MISS, DATABASE_SAVE, ISLAND_GENERATE;
+
+    private static final AtomicLongArray counts = new AtomicLongArray(values().length);
+
+    public void record() {
+        counts.incrementAndGet(ordinal());
+    }
+
+    public void record(final int count) {
+        counts.addAndGet(ordinal(), count);
+    }
+
+    public long getCount() {
+        return counts.get(ordinal());
+    }
+}
@@ -1,7 +1,26 @@
 package com.github.hoqhuuep.islandcraft.core;
 
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class ICLogger {
     public static Logger logger = null;
+
+    /**
+     * Returns true if info messages will be logged. Callers on hot paths
+     * should check this before calling info, so that no argument array is
+     * built and nothing is boxed when verbose-logging is off.
+     */
+    public static boolean isInfoEnabled() {
+        return logger.isLoggable(Level.INFO);
+    }
+
+    /**
+     * Logs an info message, only formatting it if it will be logged.
+     */
+    public static void info(final String format, final Object... args) {
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info(String.format(format, args));
+        }
+    }
 }
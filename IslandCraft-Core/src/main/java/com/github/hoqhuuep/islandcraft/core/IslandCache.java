@@ -1,53 +1,449 @@
 package com.github.hoqhuuep.islandcraft.core;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.TimeUnit;
 
+import org.bukkit.configuration.ConfigurationSection;
+
+import com.github.hoqhuuep.islandcraft.api.CompactIslandGenerator;
 import com.github.hoqhuuep.islandcraft.api.ICBiome;
+import com.github.hoqhuuep.islandcraft.api.ICBiomeSummary;
 import com.github.hoqhuuep.islandcraft.api.ICIsland;
+import com.github.hoqhuuep.islandcraft.api.ICLocation;
+import com.github.hoqhuuep.islandcraft.api.IslandGenerator;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
 
 public class IslandCache {
-    private final LoadingCache<ICIsland, ICBiome[]> cache;
+    // Released buffers kept for reuse when maximum-weight is not set
+    private static final long MAXIMUM_POOLED = 16777216L;
+    // Times to look an island up again after finding it freed by eviction
+    private static final int RETAIN_ATTEMPTS = 2;
+    private final LoadingCache<ICIsland, IslandGrid> cache;
+    private final IslandCacheLoader loader;
+    private final LoadingCache<ICIsland, ICBiomeSummary> summaries;
+    private final ForkJoinPool executor;
+    private final ConcurrentMap<ICIsland, ListenableFuture<ICIsland>> pending;
+    private final String evictionPolicy;
+    private final int expireAfter;
+    private final int databaseCacheSize;
+    private final String compact;
+    // Compact new islands in auto mode once the cache is heavier than this
+    private final long compactWeight;
+    private final AtomicLong weight;
+    // Null unless islands are stored outside the heap
+    private final DirectBufferPool pool;
 
-    public IslandCache() {
-        cache = CacheBuilder.newBuilder().expireAfterAccess(30, TimeUnit.SECONDS).build(new IslandCacheLoader());
+    public IslandCache(final ConfigurationSection config, final File diskCacheDirectory) {
+        if (!config.contains("generation-threads") || !config.isInt("generation-threads")) {
+            ICLogger.logger.warning("No int-value for 'island-cache.generation-threads' found in config.yml");
+            ICLogger.logger.warning("Default value '0' will be used");
+        }
+        // 0 means one thread per core
+        final int configThreads = config.getInt("generation-threads", 0);
+        final int generationThreads = configThreads > 0 ? configThreads : Runtime.getRuntime().availableProcessors();
+        if (!config.contains("disk-cache") || !config.isBoolean("disk-cache")) {
+            ICLogger.logger.warning("No boolean-value for 'island-cache.disk-cache' found in config.yml");
+            ICLogger.logger.warning("Default value 'true' will be used");
+        }
+        final boolean diskCacheEnabled = config.getBoolean("disk-cache", true);
+        if (!config.contains("disk-cache-size") || !config.isInt("disk-cache-size")) {
+            ICLogger.logger.warning("No int-value for 'island-cache.disk-cache-size' found in config.yml");
+            ICLogger.logger.warning("Default value '1024' will be used");
+        }
+        // Measured in MiB, 0 means no limit
+        final long diskCacheSize = Math.max(0, config.getInt("disk-cache-size", 1024)) * 1048576L;
+        final IslandDiskCache diskCache = diskCacheEnabled ? new IslandDiskCache(diskCacheDirectory, diskCacheSize) : null;
+        if (!config.contains("maximum-weight") || !(config.isInt("maximum-weight") || config.isLong("maximum-weight"))) {
+            ICLogger.logger.warning("No int-value for 'island-cache.maximum-weight' found in config.yml");
+            ICLogger.logger.warning("Default value '67108864' will be used");
+        }
+        final long maximumWeight = config.getLong("maximum-weight", 67108864L);
+        if (!config.contains("eviction-policy") || !config.isString("eviction-policy")) {
+            ICLogger.logger.warning("No string-value for 'island-cache.eviction-policy' found in config.yml");
+            ICLogger.logger.warning("Default value 'expire-after-access' will be used");
+        }
+        final String policy = config.getString("eviction-policy", "expire-after-access").toLowerCase();
+        if (policy.equals("expire-after-access") || policy.equals("expire-after-write") || policy.equals("size-only")) {
+            evictionPolicy = policy;
+        } else {
+            ICLogger.logger.warning("Unknown value '" + policy + "' for 'island-cache.eviction-policy' in config.yml");
+            ICLogger.logger.warning("Default value 'expire-after-access' will be used");
+            evictionPolicy = "expire-after-access";
+        }
+        if (!config.contains("expire-after") || !config.isInt("expire-after")) {
+            ICLogger.logger.warning("No int-value for 'island-cache.expire-after' found in config.yml");
+            ICLogger.logger.warning("Default value '30' will be used");
+        }
+        expireAfter = Math.max(1, config.getInt("expire-after", 30));
+        if (!config.contains("database-cache-size") || !config.isInt("database-cache-size")) {
+            ICLogger.logger.warning("No int-value for 'island-cache.database-cache-size' found in config.yml");
+            ICLogger.logger.warning("Default value '1024' will be used");
+        }
+        databaseCacheSize = config.getInt("database-cache-size", 1024);
+        if (!config.contains("summary-cache-size") || !config.isInt("summary-cache-size")) {
+            ICLogger.logger.warning("No int-value for 'island-cache.summary-cache-size' found in config.yml");
+            ICLogger.logger.warning("Default value '4096' will be used");
+        }
+        final int summaryCacheSize = config.getInt("summary-cache-size", 4096);
+        if (!config.contains("compact") || !config.isString("compact")) {
+            ICLogger.logger.warning("No string-value for 'island-cache.compact' found in config.yml");
+            ICLogger.logger.warning("Default value 'auto' will be used");
+        }
+        final String compactValue = config.getString("compact", "auto").toLowerCase();
+        if (compactValue.equals("auto") || compactValue.equals("always") || compactValue.equals("never")) {
+            compact = compactValue;
+        } else {
+            ICLogger.logger.warning("Unknown value '" + compactValue + "' for 'island-cache.compact' in config.yml");
+            ICLogger.logger.warning("Default value 'auto' will be used");
+            compact = "auto";
+        }
+        compactWeight = maximumWeight > 0 ? maximumWeight / 2 : Long.MAX_VALUE;
+        if (!config.contains("off-heap") || !config.isBoolean("off-heap")) {
+            ICLogger.logger.warning("No boolean-value for 'island-cache.off-heap' found in config.yml");
+            ICLogger.logger.warning("Default value 'false' will be used");
+        }
+        // Keep enough released buffers around to replace a good part of the
+        // cache without going back to the operating system
+        pool = config.getBoolean("off-heap", false) ? new DirectBufferPool(maximumWeight > 0 ? maximumWeight / 8 : MAXIMUM_POOLED) : null;
+        weight = new AtomicLong();
+        final CacheBuilder<Object, Object> builder = newCacheBuilder();
+        if (maximumWeight > 0) {
+            builder.maximumWeight(maximumWeight).weigher(new IslandWeigher());
+        }
+        loader = new IslandCacheLoader(diskCache);
+        cache = builder.removalListener(new IslandRemovalListener()).build(loader);
+        // Summaries are tiny compared to the islands, so keep them around for
+        // as long as possible rather than expiring them along with the islands
+        final CacheBuilder<Object, Object> summaryBuilder = CacheBuilder.newBuilder();
+        if (summaryCacheSize > 0) {
+            summaryBuilder.maximumSize(summaryCacheSize);
+        }
+        summaries = summaryBuilder.build(new SummaryLoader());
+        // Islands are independent, so generation tasks never fork or join, use
+        // FIFO order so islands are generated in the order they were requested
+        executor = new ForkJoinPool(generationThreads, new GeneratorThreadFactory(), null, true);
+        pending = new ConcurrentHashMap<ICIsland, ListenableFuture<ICIsland>>();
+        if (diskCache != null) {
+            // Measure the disk cache, and trim it if the limit was lowered,
+            // without holding up startup
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    diskCache.prune();
+                }
+            });
+        }
     }
 
     public ICBiome biomeAt(final ICIsland island, final int relativeX, final int relativeZ) {
-        final ICBiome[] biomes = cache.getUnchecked(island);
-        final int xSize = island.getInnerRegion().getMax().getZ() - island.getInnerRegion().getMin().getZ();
-        return biomes[relativeZ * xSize + relativeX];
+        final IslandGrid biomes = biomeOrdinals(island);
+        try {
+            return BiomeCodec.decode(biomes.get(relativeX, relativeZ));
+        } finally {
+            biomes.release();
+        }
     }
 
     private static final int BLOCKS_PER_CHUNK = 16;
 
     public ICBiome[] biomeChunk(final ICIsland island, final int relativeX, final int relativeZ) {
-        final int xSize = island.getInnerRegion().getMax().getZ() - island.getInnerRegion().getMin().getZ();
         final ICBiome[] result = new ICBiome[BLOCKS_PER_CHUNK * BLOCKS_PER_CHUNK];
-        final ICBiome[] biomes = cache.getUnchecked(island);
-        for (int z = 0; z < BLOCKS_PER_CHUNK; ++z) {
-            System.arraycopy(biomes, xSize * (relativeZ + z) + relativeX, result, z * BLOCKS_PER_CHUNK, BLOCKS_PER_CHUNK);
-        }
+        biomeChunk(island, relativeX, relativeZ, result);
         return result;
     }
 
+    public void biomeChunk(final ICIsland island, final int relativeX, final int relativeZ, final ICBiome[] result) {
+        final IslandGrid biomes = biomeOrdinals(island);
+        try {
+            biomes.getChunk(relativeX, relativeZ, result);
+        } finally {
+            biomes.release();
+        }
+    }
+
+    /**
+     * Returns the cached biomes for the whole island without copying them.
+     * The grid is retained and must be released by the caller.
+     */
+    IslandGrid biomeOrdinals(final ICIsland island) {
+        for (int i = 0; i < RETAIN_ATTEMPTS; ++i) {
+            final IslandGrid biomes = cache.getUnchecked(island);
+            if (biomes.retain()) {
+                return biomes;
+            }
+            // Freed after being evicted, it is no longer in the cache
+        }
+        // The island is evicted as soon as it is loaded, for example because
+        // it outweighs the cache, so use a copy on the heap outside the cache
+        final int xSize = IslandGrid.xSize(island);
+        final int zSize = IslandGrid.zSize(island);
+        return new ArrayIslandGrid(xSize, zSize, loader.loadOrdinals(island, xSize, zSize));
+    }
+
+    public void biomeChunkOrdinals(final ICIsland island, final int relativeX, final int relativeZ, final byte[] result) {
+        final IslandGrid biomes = biomeOrdinals(island);
+        try {
+            biomes.getChunk(relativeX, relativeZ, result);
+        } finally {
+            biomes.release();
+        }
+    }
+
     public ICBiome[] biomeAll(final ICIsland island) {
-        return cache.getUnchecked(island).clone();
+        final IslandGrid biomes = biomeOrdinals(island);
+        try {
+            return BiomeCodec.decode(biomes.toArray());
+        } finally {
+            biomes.release();
+        }
+    }
+
+    public ICBiomeSummary biomeSummary(final ICIsland island) {
+        return summaries.getUnchecked(island);
+    }
+
+    public boolean isGenerated(final ICIsland island) {
+        return cache.getIfPresent(island) != null;
+    }
+
+    /**
+     * Queues the given island for generation on a background thread. The
+     * returned future completes once the island is in the cache. Requesting an
+     * island which is already queued returns the existing future.
+     */
+    public ListenableFuture<ICIsland> request(final ICIsland island) {
+        if (isGenerated(island)) {
+            return Futures.immediateFuture(island);
+        }
+        final ListenableFuture<ICIsland> existing = pending.get(island);
+        if (existing != null) {
+            return existing;
+        }
+        final ListenableFutureTask<ICIsland> task = ListenableFutureTask.create(new Callable<ICIsland>() {
+            @Override
+            public ICIsland call() {
+                try {
+                    cache.getUnchecked(island);
+                    return island;
+                } finally {
+                    pending.remove(island);
+                }
+            }
+        });
+        final ListenableFuture<ICIsland> raced = pending.putIfAbsent(island, task);
+        if (raced != null) {
+            return raced;
+        }
+        try {
+            executor.execute(task);
+        } catch (final RejectedExecutionException e) {
+            // Shutting down, generate on this thread instead
+            task.run();
+        }
+        return task;
+    }
+
+    /**
+     * Queues all the given islands for generation at once, spread across the
+     * generation threads. The returned future completes once every island is
+     * in the cache, or fails if any of them could not be generated.
+     */
+    public ListenableFuture<List<ICIsland>> warm(final Collection<? extends ICIsland> islands) {
+        final List<ListenableFuture<ICIsland>> futures = new ArrayList<ListenableFuture<ICIsland>>(islands.size());
+        for (final ICIsland island : islands) {
+            futures.add(request(island));
+        }
+        return Futures.allAsList(futures);
+    }
+
+    /**
+     * Returns a CacheBuilder for the per-world cache of island database
+     * entries, configured with the same eviction policy as the island cache.
+     */
+    public CacheBuilder<Object, Object> newDatabaseCacheBuilder() {
+        final CacheBuilder<Object, Object> builder = newCacheBuilder();
+        if (databaseCacheSize > 0) {
+            builder.maximumSize(databaseCacheSize);
+        }
+        return builder;
+    }
+
+    private CacheBuilder<Object, Object> newCacheBuilder() {
+        final CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().recordStats();
+        switch (evictionPolicy) {
+            case "expire-after-access": {
+                builder.expireAfterAccess(expireAfter, TimeUnit.SECONDS);
+                break;
+            }
+            case "expire-after-write": {
+                builder.expireAfterWrite(expireAfter, TimeUnit.SECONDS);
+                break;
+            }
+            default: {
+                // size-only, rely on maximum-weight and database-cache-size
+                break;
+            }
+        }
+        return builder;
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long getSize() {
+        return cache.size();
+    }
+
+    public long getWeight() {
+        return weight.get();
     }
 
     public void cleanUp() {
         cache.cleanUp();
     }
 
-    private static class IslandCacheLoader extends CacheLoader<ICIsland, ICBiome[]> {
+    /**
+     * Returns the number of bytes of memory held outside the heap.
+     */
+    public long getOffHeapBytes() {
+        return pool == null ? 0 : pool.getAllocated();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        pending.clear();
+        // Hand off-heap islands back rather than wait for the collector
+        cache.invalidateAll();
+        cache.cleanUp();
+        if (pool != null) {
+            pool.clear();
+        }
+    }
+
+    private static class GeneratorThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
         @Override
-        public ICBiome[] load(final ICIsland island) {
-            final int xSize = island.getInnerRegion().getMax().getX() - island.getInnerRegion().getMin().getX();
-            final int zSize = island.getInnerRegion().getMax().getZ() - island.getInnerRegion().getMin().getZ();
+        public ForkJoinWorkerThread newThread(final ForkJoinPool pool) {
+            final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("IslandCraft Generator " + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    private IslandGrid store(final int xSize, final int zSize, final byte[] ordinals) {
+        final boolean compactThis;
+        if (compact.equals("always")) {
+            compactThis = true;
+        } else if (compact.equals("auto")) {
+            // Memory is short, trade some speed for fitting more islands
+            compactThis = weight.get() > compactWeight;
+        } else {
+            compactThis = false;
+        }
+        final IslandGrid biomes;
+        if (compactThis) {
+            biomes = new PaletteIslandGrid(xSize, zSize, ordinals);
+        } else if (pool != null) {
+            biomes = new DirectIslandGrid(xSize, zSize, ordinals, pool);
+        } else {
+            biomes = new ArrayIslandGrid(xSize, zSize, ordinals);
+        }
+        weight.addAndGet(biomes.getWeight());
+        return biomes;
+    }
+
+    private static class IslandWeigher implements Weigher<ICIsland, IslandGrid> {
+        @Override
+        public int weigh(final ICIsland island, final IslandGrid biomes) {
+            return biomes.getWeight();
+        }
+    }
+
+    private class IslandRemovalListener implements RemovalListener<ICIsland, IslandGrid> {
+        @Override
+        public void onRemoval(final RemovalNotification<ICIsland, IslandGrid> notification) {
+            weight.addAndGet(-notification.getValue().getWeight());
+            // Readers which retained the grid keep it alive until they finish
+            notification.getValue().release();
+        }
+    }
+
+    private class SummaryLoader extends CacheLoader<ICIsland, ICBiomeSummary> {
+        @Override
+        public ICBiomeSummary load(final ICIsland island) {
+            final IslandGrid biomes = biomeOrdinals(island);
+            try {
+                return new ICBiomeSummary(biomes.getXSize(), biomes.getZSize(), biomes.toArray());
+            } finally {
+                biomes.release();
+            }
+        }
+    }
+
+    private class IslandCacheLoader extends CacheLoader<ICIsland, IslandGrid> {
+        private final IslandDiskCache diskCache;
+
+        public IslandCacheLoader(final IslandDiskCache diskCache) {
+            this.diskCache = diskCache;
+        }
+
+        @Override
+        public IslandGrid load(final ICIsland island) {
+            final int xSize = IslandGrid.xSize(island);
+            final int zSize = IslandGrid.zSize(island);
+            return store(xSize, zSize, loadOrdinals(island, xSize, zSize));
+        }
+
+        private byte[] loadOrdinals(final ICIsland island, final int xSize, final int zSize) {
             final long islandSeed = island.getSeed();
-            return island.getGenerator().generate(xSize, zSize, islandSeed);
+            if (diskCache == null || !(island instanceof DefaultIsland)) {
+                return generate(island.getGenerator(), xSize, zSize, islandSeed);
+            }
+            final DefaultIsland defaultIsland = (DefaultIsland) island;
+            final String worldName = defaultIsland.getWorldName();
+            final String generator = defaultIsland.getGeneratorDefinition();
+            final ICLocation center = island.getCenter();
+            final byte[] cached = diskCache.load(worldName, center.getX(), center.getZ(), islandSeed, xSize, zSize, generator);
+            if (cached != null) {
+                return cached;
+            }
+            final byte[] biomes = generate(island.getGenerator(), xSize, zSize, islandSeed);
+            diskCache.save(worldName, center.getX(), center.getZ(), islandSeed, xSize, zSize, generator, biomes);
+            return biomes;
+        }
+
+        private byte[] generate(final IslandGenerator generator, final int xSize, final int zSize, final long islandSeed) {
+            ICEvent.ISLAND_GENERATE.record();
+            final byte[] biomes;
+            if (generator instanceof CompactIslandGenerator) {
+                biomes = ((CompactIslandGenerator) generator).generateCompact(xSize, zSize, islandSeed);
+            } else {
+                biomes = BiomeCodec.encode(generator.generate(xSize, zSize, islandSeed));
+            }
+            if (biomes.length != xSize * zSize) {
+                throw new IllegalStateException(generator.getClass().getName() + " generated " + biomes.length + " biomes for a " + xSize + "x" + zSize + " island");
+            }
+            return biomes;
         }
     }
 }
@@ -1,27 +1,89 @@
 package com.github.hoqhuuep.islandcraft.core;
 
+import java.util.List;
+
 public interface IslandDatabase {
     static class Result {
         private final long islandSeed;
-        private final String generator;
+        private final int generatorId;
 
-        public Result(final long islandSeed, final String generator) {
+        public Result(final long islandSeed, final int generatorId) {
             this.islandSeed = islandSeed;
-            this.generator = generator;
+            this.generatorId = generatorId;
         }
 
         public long getIslandSeed() {
             return islandSeed;
         }
 
-        public String getGenerator() {
-            return generator;
+        public int getGeneratorId() {
+            return generatorId;
         }
     }
 
-    void save(String worldName, int centerX, int centerZ, long islandSeed, String generator);
+    static class Entry {
+        private final String worldName;
+        private final int centerX;
+        private final int centerZ;
+        private final long islandSeed;
+        private final int generatorId;
+
+        public Entry(final String worldName, final int centerX, final int centerZ, final long islandSeed, final int generatorId) {
+            this.worldName = worldName;
+            this.centerX = centerX;
+            this.centerZ = centerZ;
+            this.islandSeed = islandSeed;
+            this.generatorId = generatorId;
+        }
+
+        public String getWorldName() {
+            return worldName;
+        }
+
+        public int getCenterX() {
+            return centerX;
+        }
+
+        public int getCenterZ() {
+            return centerZ;
+        }
+
+        public long getIslandSeed() {
+            return islandSeed;
+        }
+
+        public int getGeneratorId() {
+            return generatorId;
+        }
+    }
+
+    /**
+     * Returns the ID of the given generator definition, adding it to the
+     * database first if it is new. IDs are small, start at 0 and never change.
+     */
+    int getGeneratorId(String generator);
+
+    /**
+     * Returns the generator definition with the given ID, or null if there is
+     * none.
+     */
+    String getGenerator(int generatorId);
+
+    void save(String worldName, int centerX, int centerZ, long islandSeed, int generatorId);
+
+    /**
+     * Saves all the given entries at once, in a single transaction where the
+     * database supports it.
+     */
+    void saveAll(List<Entry> entries);
 
     Result load(String worldName, int centerX, int centerZ);
 
+    /**
+     * Adds every entry for the given world to the index, in a single query
+     * where the database supports it.
+     */
+    void loadAll(String worldName, IslandIndex index);
+
     boolean isEmpty(String worldName);
 }
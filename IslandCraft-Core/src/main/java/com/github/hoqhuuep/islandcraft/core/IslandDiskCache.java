@@ -0,0 +1,188 @@
+package com.github.hoqhuuep.islandcraft.core;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stores generated islands on disk with one byte per biome, so they do not
+ * need to be generated again after a restart or after falling out of the
+ * in-memory cache. Each file records the seed, size and generator it was
+ * generated from, any mismatch is treated as a miss and the file is replaced.
+ * When the files grow past the size limit, the least recently used ones are
+ * deleted.
+ */
+public class IslandDiskCache {
+    private static final int MAGIC = 0x49434243; // "ICBC"
+    private static final int VERSION = 1;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    // Prune down to this fraction of the limit, so it is not done every save
+    private static final double PRUNE_TARGET = 0.9;
+    private final File directory;
+    private final long maximumSize;
+    // Negative until the directory has been measured
+    private final AtomicLong size;
+
+    /**
+     * @param maximumSize
+     *            number of bytes the files may use, or 0 for no limit
+     */
+    public IslandDiskCache(final File directory, final long maximumSize) {
+        this.directory = directory;
+        this.maximumSize = maximumSize;
+        size = new AtomicLong(-1);
+    }
+
+    public byte[] load(final String worldName, final int centerX, final int centerZ, final long seed, final int xSize, final int zSize, final String generator) {
+        final File file = getFile(worldName, centerX, centerZ);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            final RandomAccessFile input = new RandomAccessFile(file, "r");
+            try {
+                // Read rather than map, a mapping would stay alive until
+                // garbage collection and stop save from replacing the file
+                final byte[] bytes = new byte[(int) input.length()];
+                input.readFully(bytes);
+                final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != seed || buffer.getInt() != xSize || buffer.getInt() != zSize) {
+                    return null;
+                }
+                final byte[] generatorBytes = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(generatorBytes);
+                if (!generator.equals(new String(generatorBytes, UTF_8)) || buffer.remaining() != xSize * zSize) {
+                    return null;
+                }
+                final byte[] result = new byte[xSize * zSize];
+                buffer.get(result);
+                for (final byte ordinal : result) {
+                    if (!BiomeCodec.isValid(ordinal)) {
+                        return null;
+                    }
+                }
+                // Used recently, so it is among the last to be pruned
+                file.setLastModified(System.currentTimeMillis());
+                return result;
+            } finally {
+                input.close();
+            }
+        } catch (final IOException e) {
+            ICLogger.logger.warning("Could not read cached island from " + file + ": " + e.getMessage());
+            return null;
+        } catch (final BufferUnderflowException e) {
+            ICLogger.logger.warning("Cached island in " + file + " is truncated and will be regenerated");
+            return null;
+        }
+    }
+
+    public void save(final String worldName, final int centerX, final int centerZ, final long seed, final int xSize, final int zSize, final String generator, final byte[] biomes) {
+        final File file = getFile(worldName, centerX, centerZ);
+        final byte[] generatorBytes = generator.getBytes(UTF_8);
+        if (generatorBytes.length > 0xFFFF) {
+            return;
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(26 + generatorBytes.length + biomes.length);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(seed);
+        buffer.putInt(xSize);
+        buffer.putInt(zSize);
+        buffer.putShort((short) generatorBytes.length);
+        buffer.put(generatorBytes);
+        buffer.put(biomes);
+        File temp = null;
+        try {
+            file.getParentFile().mkdirs();
+            // Write to a temporary file first so a crash never leaves a
+            // partially written island behind
+            temp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+            final FileOutputStream output = new FileOutputStream(temp);
+            try {
+                output.write(buffer.array());
+            } finally {
+                output.close();
+            }
+            final long replaced = file.length();
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            if (maximumSize > 0 && size.get() >= 0 && size.addAndGet(buffer.capacity() - replaced) > maximumSize) {
+                prune();
+            }
+        } catch (final IOException e) {
+            ICLogger.logger.warning("Could not write cached island to " + file + ": " + e.getMessage());
+            if (temp != null) {
+                temp.delete();
+            }
+        }
+    }
+
+    /**
+     * Measures the files and deletes the least recently used ones while they
+     * use more than the size limit.
+     */
+    public synchronized void prune() {
+        if (maximumSize <= 0) {
+            return;
+        }
+        final List<File> files = new ArrayList<File>();
+        long total = 0;
+        final File[] worlds = directory.listFiles();
+        if (worlds != null) {
+            for (final File world : worlds) {
+                final File[] islands = world.listFiles();
+                if (islands == null) {
+                    continue;
+                }
+                for (final File island : islands) {
+                    if (island.getName().endsWith(".dat")) {
+                        files.add(island);
+                        total += island.length();
+                    }
+                }
+            }
+        }
+        if (total > maximumSize) {
+            // Read each time stamp once rather than on every comparison
+            final List<long[]> order = new ArrayList<long[]>(files.size());
+            for (int i = 0; i < files.size(); ++i) {
+                order.add(new long[] { files.get(i).lastModified(), i });
+            }
+            Collections.sort(order, new Comparator<long[]>() {
+                @Override
+                public int compare(final long[] a, final long[] b) {
+                    return a[0] < b[0] ? -1 : (a[0] == b[0] ? 0 : 1);
+                }
+            });
+            final long target = (long) (maximumSize * PRUNE_TARGET);
+            int deleted = 0;
+            for (final long[] entry : order) {
+                if (total <= target) {
+                    break;
+                }
+                final File file = files.get((int) entry[1]);
+                final long length = file.length();
+                if (file.delete()) {
+                    total -= length;
+                    ++deleted;
+                }
+            }
+            ICLogger.info("Deleted %d cached islands from %s to stay under the size limit", deleted, directory);
+        }
+        size.set(total);
+    }
+
+    private File getFile(final String worldName, final int centerX, final int centerZ) {
+        return new File(new File(directory, worldName), centerX + "_" + centerZ + ".dat");
+    }
+}
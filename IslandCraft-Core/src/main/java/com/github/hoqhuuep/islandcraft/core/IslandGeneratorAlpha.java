@@ -1,9 +1,5 @@
 package com.github.hoqhuuep.islandcraft.core;
 
-import java.awt.AlphaComposite;
-import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -14,28 +10,29 @@ import org.apache.commons.lang.StringUtils;
 import org.bukkit.util.noise.OctaveGenerator;
 import org.bukkit.util.noise.SimplexOctaveGenerator;
 
+import com.github.hoqhuuep.islandcraft.api.CompactIslandGenerator;
 import com.github.hoqhuuep.islandcraft.api.ICBiome;
-import com.github.hoqhuuep.islandcraft.api.IslandGenerator;
 import com.github.hoqhuuep.islandcraft.core.mosaic.Poisson;
+import com.github.hoqhuuep.islandcraft.core.mosaic.Rasterizer;
 import com.github.hoqhuuep.islandcraft.core.mosaic.Site;
 
-public class IslandGeneratorAlpha implements IslandGenerator {
+public class IslandGeneratorAlpha implements CompactIslandGenerator {
     private static final double MIN_DISTANCE = 8;
     private static final double NOISE = 2.7;
     private static final double CIRCLE = 2;
     private static final double SQUARE = 0;
     private static final double THRESHOLD = 2;
-    private final Color ocean;
-    private final Color normal;
-    private final Color mountains;
-    private final Color hills;
-    private final Color hillsMountains;
-    private final Color forest;
-    private final Color forestMountains;
-    private final Color outerCoast;
-    private final Color innerCoast;
+    private final byte ocean;
+    private final byte normal;
+    private final byte mountains;
+    private final byte hills;
+    private final byte hillsMountains;
+    private final byte forest;
+    private final byte forestMountains;
+    private final byte outerCoast;
+    private final byte innerCoast;
 
-    // private final Color river; // unused for now
+    // private final byte river; // unused for now
 
     public IslandGeneratorAlpha(final String[] args) {
         ICLogger.logger.info("Creating IslandGeneratorAlpha with args: " + StringUtils.join(args, " "));
@@ -43,21 +40,28 @@ public class IslandGeneratorAlpha implements IslandGenerator {
             ICLogger.logger.severe("IslandGeneratorAlpha requrires 9 parameters, " + args.length + " given");
             throw new IllegalArgumentException("IslandGeneratorAlpha requrires 9 parameters");
         }
-        ocean = new Color(ICBiome.values().length, true);
-        normal = biomeColor(args[0], ocean);
-        mountains = biomeColor(args[1], normal);
-        hills = biomeColor(args[2], normal);
-        hillsMountains = biomeColor(args[3], hills);
-        forest = biomeColor(args[4], normal);
-        forestMountains = biomeColor(args[5], forest);
-        outerCoast = biomeColor(args[6], normal);
-        innerCoast = biomeColor(args[7], normal);
-        // river = biomeColor(args[8], normal); // unused for now
+        ocean = BiomeCodec.NONE;
+        normal = biomeOrdinal(args[0], ocean);
+        mountains = biomeOrdinal(args[1], normal);
+        hills = biomeOrdinal(args[2], normal);
+        hillsMountains = biomeOrdinal(args[3], hills);
+        forest = biomeOrdinal(args[4], normal);
+        forestMountains = biomeOrdinal(args[5], forest);
+        outerCoast = biomeOrdinal(args[6], normal);
+        innerCoast = biomeOrdinal(args[7], normal);
+        // river = biomeOrdinal(args[8], normal); // unused for now
     }
 
     @Override
     public ICBiome[] generate(final int xSize, final int zSize, final long islandSeed) {
-        ICLogger.logger.info(String.format("Generating island from IslandGeneratorAlpha with xSize: %d, zSize: %d, islandSeed: %d, biome: %s", xSize, zSize, islandSeed, ICBiome.values()[normal.getRGB()]));
+        return BiomeCodec.decode(generateCompact(xSize, zSize, islandSeed));
+    }
+
+    @Override
+    public byte[] generateCompact(final int xSize, final int zSize, final long islandSeed) {
+        if (ICLogger.isInfoEnabled()) {
+            ICLogger.info("Generating island from IslandGeneratorAlpha with xSize: %d, zSize: %d, islandSeed: %d, biome: %s", xSize, zSize, islandSeed, BiomeCodec.decode(normal));
+        }
         final Poisson poisson = new Poisson(xSize, zSize, MIN_DISTANCE);
         final List<Site> sites = poisson.generate(new Random(islandSeed));
         final SimplexOctaveGenerator shapeNoise = new SimplexOctaveGenerator(islandSeed, 2);
@@ -118,61 +122,45 @@ public class IslandGeneratorAlpha implements IslandGenerator {
                 }
             }
         }
-        // Create blank image
-        final BufferedImage image = new BufferedImage(xSize, zSize, BufferedImage.TYPE_INT_ARGB);
-        final Graphics2D graphics = image.createGraphics();
-        graphics.setComposite(AlphaComposite.Src);
-        graphics.setBackground(ocean);
-        graphics.clearRect(0, 0, xSize, zSize);
+        // Create blank island
+        final Rasterizer rasterizer = new Rasterizer(xSize, zSize, ocean);
         // Render island
         for (final Site site : sites) {
+            final byte biome;
             if (site.isOcean) {
                 continue;
             } else if (site.isOuterCoast) {
-                graphics.setColor(outerCoast);
+                biome = outerCoast;
             } else if (site.isInnerCoast) {
-                graphics.setColor(innerCoast);
+                biome = innerCoast;
             } else if (noise(site, 0.375, 160.0, mountainsNoise)) {
                 if (noise(site, 0.375, 80.0, hillsNoise)) {
-                    graphics.setColor(hillsMountains);
+                    biome = hillsMountains;
                 } else if (noise(site, 0.375, 160.0, forestNoise)) {
-                    graphics.setColor(forestMountains);
+                    biome = forestMountains;
                 } else {
-                    graphics.setColor(mountains);
+                    biome = mountains;
                 }
             } else {
                 if (noise(site, 0.375, 80.0, hillsNoise)) {
-                    graphics.setColor(hills);
+                    biome = hills;
                 } else if (noise(site, 0.375, 160.0, forestNoise)) {
-                    graphics.setColor(forest);
+                    biome = forest;
                 } else {
-                    graphics.setColor(normal);
+                    biome = normal;
                 }
             }
-            graphics.fillPolygon(site.polygon);
-            graphics.drawPolygon(site.polygon);
-        }
-        // Save result
-        graphics.dispose();
-        final ICBiome[] result = new ICBiome[xSize * zSize];
-        final ICBiome[] values = ICBiome.values();
-        final int maxOrdinal = values.length;
-        for (int i = 0; i < result.length; ++i) {
-            final int x = i % xSize;
-            final int z = i / xSize;
-            final int ordinal = image.getRGB(x, z);
-            if (ordinal < maxOrdinal) {
-                result[i] = values[ordinal];
-            }
+            rasterizer.fill(site.polygon, biome);
+            rasterizer.draw(site.polygon, biome);
         }
-        return result;
+        return rasterizer.getPixels();
     }
 
-    private static Color biomeColor(final String name, final Color backup) {
+    private static byte biomeOrdinal(final String name, final byte backup) {
         if (name.equals("~")) {
             return backup;
         }
-        return new Color(ICBiome.valueOf(name).ordinal(), true);
+        return BiomeCodec.encode(ICBiome.valueOf(name));
     }
 
     private static boolean noise(final Site site, final double threshold, final double period, final OctaveGenerator octaveGenerator) {
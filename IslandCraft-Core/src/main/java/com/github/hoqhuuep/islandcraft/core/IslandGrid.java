@@ -0,0 +1,138 @@
+package com.github.hoqhuuep.islandcraft.core;
+
+import com.github.hoqhuuep.islandcraft.api.ICBiome;
+import com.github.hoqhuuep.islandcraft.api.ICIsland;
+import com.github.hoqhuuep.islandcraft.api.ICRegion;
+
+/**
+ * The biome ordinals of a whole island as held by IslandCache, or
+ * BiomeCodec.NONE where there is no biome. Rows run along the x axis, so
+ * islands do not have to be square. Instances are immutable.
+ */
+public abstract class IslandGrid {
+    protected static final int CHUNK_SIZE = 16;
+    protected final int xSize;
+    protected final int zSize;
+
+    protected IslandGrid(final int xSize, final int zSize) {
+        if (xSize <= 0 || zSize <= 0) {
+            throw new IllegalArgumentException("Island size must be positive, not " + xSize + "x" + zSize);
+        }
+        this.xSize = xSize;
+        this.zSize = zSize;
+    }
+
+    /**
+     * Returns the biome ordinal at the given location relative to the island.
+     *
+     * @throws IndexOutOfBoundsException
+     *             if the location is outside the island
+     */
+    public byte get(final int x, final int z) {
+        if (x < 0 || z < 0 || x >= xSize || z >= zSize) {
+            throw new IndexOutOfBoundsException("Location " + x + "," + z + " is outside island of size " + xSize + "x" + zSize);
+        }
+        return getUnchecked(x, z);
+    }
+
+    /**
+     * Copies the biome ordinals of the 16x16 chunk at the given location
+     * relative to the island into result, such that each element is at index
+     * [x + z * 16].
+     *
+     * @throws IndexOutOfBoundsException
+     *             if any part of the chunk is outside the island
+     */
+    public void getChunk(final int relativeX, final int relativeZ, final byte[] result) {
+        checkChunk(relativeX, relativeZ);
+        copyChunk(relativeX, relativeZ, result);
+    }
+
+    /**
+     * As getChunk, but decodes the ordinals, with null where there is no
+     * biome.
+     */
+    public void getChunk(final int relativeX, final int relativeZ, final ICBiome[] result) {
+        checkChunk(relativeX, relativeZ);
+        for (int z = 0; z < CHUNK_SIZE; ++z) {
+            for (int x = 0; x < CHUNK_SIZE; ++x) {
+                result[z * CHUNK_SIZE + x] = BiomeCodec.decode(getUnchecked(relativeX + x, relativeZ + z));
+            }
+        }
+    }
+
+    /**
+     * Adds a reference to the grid, which must be released once the caller is
+     * done with it. Returns false if the grid has already been freed, in which
+     * case it must not be used.
+     */
+    public boolean retain() {
+        // Only grids outside the heap are ever freed
+        return true;
+    }
+
+    /**
+     * Removes a reference added by retain, or the cache's own reference.
+     */
+    public void release() {
+    }
+
+    /**
+     * Returns a new byte[xSize * zSize] containing every biome ordinal, such
+     * that each element is at index [x + z * xSize].
+     */
+    public abstract byte[] toArray();
+
+    /**
+     * Returns the approximate number of bytes of memory used.
+     */
+    public abstract int getWeight();
+
+    public int getXSize() {
+        return xSize;
+    }
+
+    public int getZSize() {
+        return zSize;
+    }
+
+    /**
+     * Returns the size along the x axis of grids for the given island.
+     */
+    public static int xSize(final ICIsland island) {
+        final ICRegion region = island.getInnerRegion();
+        return region.getMax().getX() - region.getMin().getX();
+    }
+
+    /**
+     * Returns the size along the z axis of grids for the given island.
+     */
+    public static int zSize(final ICIsland island) {
+        final ICRegion region = island.getInnerRegion();
+        return region.getMax().getZ() - region.getMin().getZ();
+    }
+
+    // Location is already known to be inside the island
+    protected abstract byte getUnchecked(int x, int z);
+
+    // Chunk is already known to be inside the island
+    protected void copyChunk(final int relativeX, final int relativeZ, final byte[] result) {
+        for (int z = 0; z < CHUNK_SIZE; ++z) {
+            for (int x = 0; x < CHUNK_SIZE; ++x) {
+                result[z * CHUNK_SIZE + x] = getUnchecked(relativeX + x, relativeZ + z);
+            }
+        }
+    }
+
+    protected static void checkLength(final int xSize, final int zSize, final byte[] ordinals) {
+        if (ordinals.length != xSize * zSize) {
+            throw new IllegalArgumentException("Expected " + xSize + "x" + zSize + " biomes but got " + ordinals.length);
+        }
+    }
+
+    protected void checkChunk(final int relativeX, final int relativeZ) {
+        if (relativeX < 0 || relativeZ < 0 || relativeX > xSize - CHUNK_SIZE || relativeZ > zSize - CHUNK_SIZE) {
+            throw new IndexOutOfBoundsException("Chunk at " + relativeX + "," + relativeZ + " is not inside island of size " + xSize + "x" + zSize);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.hoqhuuep.islandcraft.core;
+
+import java.util.Arrays;
+
+/**
+ * In-memory copy of the database entries for one world, keyed by island
+ * center. Uses open addressing over primitive arrays so that thousands of
+ * islands cost a few bytes each.
+ */
+public class IslandIndex {
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int NO_GENERATOR = -1;
+    private long[] centers;
+    private long[] seeds;
+    private int[] generatorIds;
+    private int size;
+
+    public IslandIndex() {
+        centers = new long[INITIAL_CAPACITY];
+        seeds = new long[INITIAL_CAPACITY];
+        generatorIds = new int[INITIAL_CAPACITY];
+        Arrays.fill(generatorIds, NO_GENERATOR);
+        size = 0;
+    }
+
+    public synchronized void put(final int centerX, final int centerZ, final long islandSeed, final int generatorId) {
+        if ((size + 1) * 2 > centers.length) {
+            resize(centers.length * 2);
+        }
+        final long center = pack(centerX, centerZ);
+        final int slot = find(center);
+        if (generatorIds[slot] == NO_GENERATOR) {
+            ++size;
+        }
+        centers[slot] = center;
+        seeds[slot] = islandSeed;
+        generatorIds[slot] = generatorId;
+    }
+
+    public synchronized IslandDatabase.Result get(final int centerX, final int centerZ) {
+        final int slot = find(pack(centerX, centerZ));
+        if (generatorIds[slot] == NO_GENERATOR) {
+            return null;
+        }
+        return new IslandDatabase.Result(seeds[slot], generatorIds[slot]);
+    }
+
+    /**
+     * Adds every entry of the other index to this one.
+     */
+    public void putAll(final IslandIndex other) {
+        synchronized (other) {
+            for (int i = 0; i < other.centers.length; ++i) {
+                if (other.generatorIds[i] != NO_GENERATOR) {
+                    final long center = other.centers[i];
+                    put((int) (center >> 32), (int) center, other.seeds[i], other.generatorIds[i]);
+                }
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // Returns the slot containing center, or the empty slot where it belongs
+    private int find(final long center) {
+        final int mask = centers.length - 1;
+        int slot = hash(center) & mask;
+        while (generatorIds[slot] != NO_GENERATOR && centers[slot] != center) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize(final int capacity) {
+        final long[] oldCenters = centers;
+        final long[] oldSeeds = seeds;
+        final int[] oldGeneratorIds = generatorIds;
+        centers = new long[capacity];
+        seeds = new long[capacity];
+        generatorIds = new int[capacity];
+        Arrays.fill(generatorIds, NO_GENERATOR);
+        for (int i = 0; i < oldCenters.length; ++i) {
+            if (oldGeneratorIds[i] != NO_GENERATOR) {
+                final int slot = find(oldCenters[i]);
+                centers[slot] = oldCenters[i];
+                seeds[slot] = oldSeeds[i];
+                generatorIds[slot] = oldGeneratorIds[i];
+            }
+        }
+    }
+
+    private static long pack(final int centerX, final int centerZ) {
+        return (long) centerX << 32 | centerZ & 0xFFFFFFFFL;
+    }
+
+    private static int hash(final long center) {
+        // Island centers are evenly spaced, so mix the bits before masking
+        final long mixed = center * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ mixed >>> 32);
+    }
+}
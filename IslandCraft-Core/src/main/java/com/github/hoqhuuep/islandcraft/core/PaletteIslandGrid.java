@@ -0,0 +1,202 @@
+package com.github.hoqhuuep.islandcraft.core;
+
+import java.util.Arrays;
+
+import com.github.hoqhuuep.islandcraft.api.ICBiome;
+
+/**
+ * Stores each 16x16 tile of an island as a small palette of the biomes in
+ * that tile followed by a 0, 1, 2 or 4-bit palette index per block. Tiles
+ * with more than 16 biomes are stored one byte per block. Islands are mostly
+ * large areas of a few biomes, so this is typically 4-8 times smaller than
+ * ArrayIslandGrid, at the cost of slower reads.
+ */
+public class PaletteIslandGrid extends IslandGrid {
+    private static final int TILE_SIZE = CHUNK_SIZE;
+    private static final int TILE_AREA = TILE_SIZE * TILE_SIZE;
+    private static final int MAX_PALETTE_SIZE = 16;
+    // Tile header for tiles stored one byte per block
+    private static final byte RAW = -1;
+    // Arrays headers plus the fields of this object
+    private static final int OVERHEAD = 64;
+    private final int xTiles;
+    // Start of each tile in data
+    private final int[] offsets;
+    // Each tile is a header byte, which is RAW or the palette size minus 1,
+    // then the palette and then the packed indices
+    private final byte[] data;
+
+    /**
+     * @param ordinals
+     *            a byte[xSize * zSize] such that each element is at index
+     *            [x + z * xSize]
+     */
+    public PaletteIslandGrid(final int xSize, final int zSize, final byte[] ordinals) {
+        super(xSize, zSize);
+        checkLength(xSize, zSize, ordinals);
+        xTiles = (xSize + TILE_SIZE - 1) / TILE_SIZE;
+        final int zTiles = (zSize + TILE_SIZE - 1) / TILE_SIZE;
+        offsets = new int[xTiles * zTiles];
+        final byte[][] palettes = new byte[offsets.length][];
+        final byte[] tile = new byte[TILE_AREA];
+        // Palette index of each ordinal, by (ordinal & 0xFF), or -1
+        final int[] indices = new int[256];
+        Arrays.fill(indices, -1);
+        int size = 0;
+        for (int t = 0; t < offsets.length; ++t) {
+            copyTile(ordinals, t, tile);
+            final byte[] palette = palette(tile, indices);
+            palettes[t] = palette;
+            offsets[t] = size;
+            size += palette == null ? 1 + TILE_AREA : 1 + palette.length + TILE_AREA * bits(palette.length) / 8;
+        }
+        data = new byte[size];
+        for (int t = 0; t < offsets.length; ++t) {
+            copyTile(ordinals, t, tile);
+            final byte[] palette = palettes[t];
+            final int offset = offsets[t];
+            if (palette == null) {
+                data[offset] = RAW;
+                System.arraycopy(tile, 0, data, offset + 1, TILE_AREA);
+                continue;
+            }
+            data[offset] = (byte) (palette.length - 1);
+            System.arraycopy(palette, 0, data, offset + 1, palette.length);
+            final int bits = bits(palette.length);
+            if (bits == 0) {
+                continue;
+            }
+            for (int i = 0; i < palette.length; ++i) {
+                indices[palette[i] & 0xFF] = i;
+            }
+            final int start = offset + 1 + palette.length;
+            for (int i = 0; i < TILE_AREA; ++i) {
+                final int bit = i * bits;
+                data[start + (bit >> 3)] |= indices[tile[i] & 0xFF] << (bit & 7);
+            }
+            for (final byte ordinal : palette) {
+                indices[ordinal & 0xFF] = -1;
+            }
+        }
+    }
+
+    @Override
+    public void getChunk(final int relativeX, final int relativeZ, final ICBiome[] result) {
+        checkChunk(relativeX, relativeZ);
+        if (relativeX % TILE_SIZE == 0 && relativeZ % TILE_SIZE == 0) {
+            final int offset = offsets[(relativeZ / TILE_SIZE) * xTiles + relativeX / TILE_SIZE];
+            if (data[offset] == 0) {
+                Arrays.fill(result, 0, TILE_AREA, BiomeCodec.decode(data[offset + 1]));
+                return;
+            }
+        }
+        super.getChunk(relativeX, relativeZ, result);
+    }
+
+    @Override
+    protected byte getUnchecked(final int x, final int z) {
+        final int offset = offsets[(z / TILE_SIZE) * xTiles + x / TILE_SIZE];
+        return read(offset, data[offset], (z % TILE_SIZE) * TILE_SIZE + x % TILE_SIZE);
+    }
+
+    @Override
+    protected void copyChunk(final int relativeX, final int relativeZ, final byte[] result) {
+        if (relativeX % TILE_SIZE != 0 || relativeZ % TILE_SIZE != 0) {
+            super.copyChunk(relativeX, relativeZ, result);
+            return;
+        }
+        final int offset = offsets[(relativeZ / TILE_SIZE) * xTiles + relativeX / TILE_SIZE];
+        final byte header = data[offset];
+        if (header == RAW) {
+            System.arraycopy(data, offset + 1, result, 0, TILE_AREA);
+        } else if (header == 0) {
+            Arrays.fill(result, 0, TILE_AREA, data[offset + 1]);
+        } else {
+            for (int i = 0; i < TILE_AREA; ++i) {
+                result[i] = read(offset, header, i);
+            }
+        }
+    }
+
+    @Override
+    public byte[] toArray() {
+        final byte[] result = new byte[xSize * zSize];
+        for (int z = 0; z < zSize; ++z) {
+            for (int x = 0; x < xSize; ++x) {
+                result[z * xSize + x] = getUnchecked(x, z);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int getWeight() {
+        return OVERHEAD + data.length + offsets.length * 4;
+    }
+
+    private byte read(final int offset, final byte header, final int i) {
+        if (header == RAW) {
+            return data[offset + 1 + i];
+        }
+        if (header == 0) {
+            return data[offset + 1];
+        }
+        final int paletteSize = header + 1;
+        final int bits = bits(paletteSize);
+        final int bit = i * bits;
+        final int index = (data[offset + 1 + paletteSize + (bit >> 3)] >> (bit & 7)) & ((1 << bits) - 1);
+        return data[offset + 1 + index];
+    }
+
+    // Copies a tile, padding blocks past the edge of the island with the
+    // tile's first block so that they do not grow the palette
+    private void copyTile(final byte[] ordinals, final int t, final byte[] tile) {
+        final int tileX = (t % xTiles) * TILE_SIZE;
+        final int tileZ = (t / xTiles) * TILE_SIZE;
+        final byte first = ordinals[tileZ * xSize + tileX];
+        for (int z = 0; z < TILE_SIZE; ++z) {
+            for (int x = 0; x < TILE_SIZE; ++x) {
+                final boolean inside = tileX + x < xSize && tileZ + z < zSize;
+                tile[z * TILE_SIZE + x] = inside ? ordinals[(tileZ + z) * xSize + tileX + x] : first;
+            }
+        }
+    }
+
+    // Returns the distinct ordinals in the tile, or null if there are too
+    // many. Leaves indices as it was found
+    private static byte[] palette(final byte[] tile, final int[] indices) {
+        final byte[] palette = new byte[MAX_PALETTE_SIZE];
+        int size = 0;
+        byte[] result = null;
+        for (final byte ordinal : tile) {
+            if (indices[ordinal & 0xFF] < 0) {
+                if (size == MAX_PALETTE_SIZE) {
+                    size = -1;
+                    break;
+                }
+                indices[ordinal & 0xFF] = size;
+                palette[size++] = ordinal;
+            }
+        }
+        for (final byte ordinal : palette) {
+            indices[ordinal & 0xFF] = -1;
+        }
+        if (size > 0) {
+            result = Arrays.copyOf(palette, size);
+        }
+        return result;
+    }
+
+    private static int bits(final int paletteSize) {
+        if (paletteSize == 1) {
+            return 0;
+        }
+        if (paletteSize == 2) {
+            return 1;
+        }
+        if (paletteSize <= 4) {
+            return 2;
+        }
+        return 4;
+    }
+}
@@ -98,16 +98,16 @@ public class SquareIslandDistribution implements IslandDistribution {
             final int centerZ = absoluteHashZ - islandSeparation;
             if (relativeX < oceanSize) {
                 final int centerX = absoluteHashX - islandSeparation;
-                result.add(getCenter(centerX, centerZ));
-                result.add(getCenter(centerX, absoluteHashZ));
+                result.add(new ICLocation(centerX, centerZ));
+                result.add(new ICLocation(centerX, absoluteHashZ));
             }
-            result.add(getCenter(absoluteHashX, centerZ));
+            result.add(new ICLocation(absoluteHashX, centerZ));
         } else if (relativeX < oceanSize) {
             final int centerX = absoluteHashX - islandSeparation;
-            result.add(getCenter(centerX, absoluteHashZ));
+            result.add(new ICLocation(centerX, absoluteHashZ));
         }
         // Center
-        result.add(getCenter(absoluteHashX, absoluteHashZ));
+        result.add(new ICLocation(absoluteHashX, absoluteHashZ));
         return result;
     }
 
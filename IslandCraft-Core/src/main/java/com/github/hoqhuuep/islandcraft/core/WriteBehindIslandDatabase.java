@@ -0,0 +1,253 @@
+package com.github.hoqhuuep.islandcraft.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Queues saved islands in memory and writes them to the underlying database
+ * in batches on a background thread, so that discovering a new island does
+ * not wait for a commit. Queued islands are served from memory until they have
+ * been written. close() must be called to write any remaining islands.
+ */
+public class WriteBehindIslandDatabase implements IslandDatabase {
+    private final IslandDatabase database;
+    private final int batchSize;
+    private final ConcurrentMap<Key, Entry> pending;
+    private final ConcurrentLinkedQueue<Entry> queue;
+    private final ScheduledExecutorService executor;
+    private final Runnable flushTask;
+    // Only accessed while holding the lock on this
+    private final List<Entry> failed;
+    // Do not keep retrying early while the database is failing
+    private volatile boolean failing;
+    private final AtomicBoolean flushQueued;
+
+    public WriteBehindIslandDatabase(final IslandDatabase database, final ConfigurationSection config) {
+        this.database = database;
+        if (!config.contains("flush-interval") || !config.isInt("flush-interval")) {
+            ICLogger.logger.warning("No int-value for 'database.flush-interval' found in config.yml");
+            ICLogger.logger.warning("Default value '5' will be used");
+        }
+        final int flushInterval = Math.max(1, config.getInt("flush-interval", 5));
+        if (!config.contains("batch-size") || !config.isInt("batch-size")) {
+            ICLogger.logger.warning("No int-value for 'database.batch-size' found in config.yml");
+            ICLogger.logger.warning("Default value '256' will be used");
+        }
+        batchSize = Math.max(1, config.getInt("batch-size", 256));
+        pending = new ConcurrentHashMap<Key, Entry>();
+        queue = new ConcurrentLinkedQueue<Entry>();
+        failed = new ArrayList<Entry>();
+        flushQueued = new AtomicBoolean(false);
+        flushTask = new Runnable() {
+            @Override
+            public void run() {
+                flushQueued.set(false);
+                flush();
+            }
+        };
+        executor = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder().setNameFormat("IslandCraft Database Writer").setDaemon(true).build());
+        executor.scheduleWithFixedDelay(flushTask, flushInterval, flushInterval, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public int getGeneratorId(final String generator) {
+        return database.getGeneratorId(generator);
+    }
+
+    @Override
+    public String getGenerator(final int generatorId) {
+        return database.getGenerator(generatorId);
+    }
+
+    @Override
+    public void save(final String worldName, final int centerX, final int centerZ, final long islandSeed, final int generatorId) {
+        final Entry entry = new Entry(worldName, centerX, centerZ, islandSeed, generatorId);
+        pending.put(new Key(worldName, centerX, centerZ), entry);
+        queue.add(entry);
+        if (!failing && pending.size() >= batchSize && flushQueued.compareAndSet(false, true)) {
+            try {
+                executor.execute(flushTask);
+            } catch (final RejectedExecutionException e) {
+                // Closing, the final flush will write it
+            }
+        }
+    }
+
+    @Override
+    public void saveAll(final List<Entry> entries) {
+        for (final Entry entry : entries) {
+            save(entry.getWorldName(), entry.getCenterX(), entry.getCenterZ(), entry.getIslandSeed(), entry.getGeneratorId());
+        }
+    }
+
+    @Override
+    public Result load(final String worldName, final int centerX, final int centerZ) {
+        final Entry entry = pending.get(new Key(worldName, centerX, centerZ));
+        if (entry != null) {
+            return new Result(entry.getIslandSeed(), entry.getGeneratorId());
+        }
+        return database.load(worldName, centerX, centerZ);
+    }
+
+    @Override
+    public void loadAll(final String worldName, final IslandIndex index) {
+        database.loadAll(worldName, index);
+        for (final Entry entry : pending.values()) {
+            if (entry.getWorldName().equals(worldName)) {
+                index.put(entry.getCenterX(), entry.getCenterZ(), entry.getIslandSeed(), entry.getGeneratorId());
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty(final String worldName) {
+        for (final Entry entry : pending.values()) {
+            if (entry.getWorldName().equals(worldName)) {
+                return false;
+            }
+        }
+        return database.isEmpty(worldName);
+    }
+
+    /**
+     * Writes all queued islands to the underlying database. Islands which
+     * could not be written because the database is unavailable stay queued
+     * and are retried on the next flush. Islands which the database rejects
+     * on their own are dropped.
+     *
+     * @return true if every queued island was written
+     */
+    public synchronized boolean flush() {
+        boolean success = true;
+        while (success) {
+            final List<Entry> batch = new ArrayList<Entry>(batchSize);
+            while (batch.size() < batchSize - failed.size()) {
+                final Entry entry = queue.poll();
+                if (entry == null) {
+                    break;
+                }
+                batch.add(entry);
+            }
+            // Retried islands go last, so that if one of them is rejected the
+            // new islands show that the database itself is working
+            batch.addAll(failed);
+            failed.clear();
+            if (batch.isEmpty()) {
+                break;
+            }
+            try {
+                database.saveAll(batch);
+            } catch (final Exception e) {
+                ICLogger.logger.warning(String.format("Error saving %d islands to database, they will be saved one at a time", batch.size()));
+                ICLogger.logger.warning("Exception message: " + e.getMessage());
+                success = saveEach(batch);
+                continue;
+            }
+            for (final Entry entry : batch) {
+                pending.remove(new Key(entry.getWorldName(), entry.getCenterX(), entry.getCenterZ()), entry);
+            }
+        }
+        failing = !success;
+        return success;
+    }
+
+    // Returns false if the database seems to be unavailable, in which case the
+    // islands not yet saved are left in failed
+    private boolean saveEach(final List<Entry> batch) {
+        boolean saved = false;
+        for (int i = 0; i < batch.size(); ++i) {
+            final Entry entry = batch.get(i);
+            try {
+                database.save(entry.getWorldName(), entry.getCenterX(), entry.getCenterZ(), entry.getIslandSeed(), entry.getGeneratorId());
+                saved = true;
+            } catch (final Exception e) {
+                if (!saved) {
+                    // Nothing could be saved at all. Put this island last so
+                    // that it cannot hold up the others forever
+                    ICLogger.logger.warning(String.format("Error saving islands to database, %d will be retried later", batch.size() - i));
+                    ICLogger.logger.warning("Exception message: " + e.getMessage());
+                    failed.addAll(batch.subList(i + 1, batch.size()));
+                    failed.add(entry);
+                    return false;
+                }
+                ICLogger.logger.severe(String.format("Island with worldName: %s, centerX: %d, centerZ: %d could not be saved to database and has been dropped", entry.getWorldName(), entry.getCenterX(), entry.getCenterZ()));
+                ICLogger.logger.severe("It will be recreated from the world seed the next time it is needed");
+                ICLogger.logger.severe("Exception message: " + e.getMessage());
+            }
+            pending.remove(new Key(entry.getWorldName(), entry.getCenterX(), entry.getCenterZ()), entry);
+        }
+        return true;
+    }
+
+    /**
+     * Stops the background thread and writes any remaining islands to the
+     * underlying database on the calling thread.
+     */
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!flush()) {
+            ICLogger.logger.severe(String.format("%d islands could not be saved to database", pending.size()));
+            ICLogger.logger.severe("They will be recreated from the world seed the next time they are needed");
+        }
+    }
+
+    private static class Key {
+        private final String worldName;
+        private final int centerX;
+        private final int centerZ;
+
+        public Key(final String worldName, final int centerX, final int centerZ) {
+            this.worldName = worldName;
+            this.centerX = centerX;
+            this.centerZ = centerZ;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + centerX;
+            result = prime * result + centerZ;
+            result = prime * result + ((worldName == null) ? 0 : worldName.hashCode());
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null)
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            Key other = (Key) obj;
+            if (centerX != other.centerX)
+                return false;
+            if (centerZ != other.centerZ)
+                return false;
+            if (worldName == null) {
+                if (other.worldName != null)
+                    return false;
+            } else if (!worldName.equals(other.worldName))
+                return false;
+            return true;
+        }
+    }
+}
@@ -1,33 +1,63 @@
 package com.github.hoqhuuep.islandcraft.core.mosaic;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
+/**
+ * Spatial hash of items into square cells. Each cell is a linked list of item
+ * indices stored in flat int arrays, so adding and visiting items does not
+ * allocate. Items in a region are visited in order of x row, then z row, then
+ * the order they were added.
+ */
 public final class Grid<T> {
-    private final List<List<List<T>>> grid;
+    private static final int NONE = -1;
+    private final int zRows;
+    // First and last item index in each cell
+    private final int[] head;
+    private final int[] tail;
+    // Next item index in the same cell
+    private int[] next;
+    private Object[] items;
+    private int size;
+
+    public interface Visitor<T> {
+        void visit(T item);
+    }
 
     public Grid(final int xRows, final int zRows) {
-        grid = new ArrayList<List<List<T>>>(xRows);
-        for (int x = 0; x < xRows; ++x) {
-            final List<List<T>> row = new ArrayList<List<T>>(zRows);
-            for (int z = 0; z < zRows; ++z) {
-                row.add(new ArrayList<T>());
-            }
-            grid.add(row);
-        }
+        this.zRows = zRows;
+        head = new int[xRows * zRows];
+        tail = new int[xRows * zRows];
+        Arrays.fill(head, NONE);
+        next = new int[64];
+        items = new Object[64];
+        size = 0;
     }
 
     public void add(final int xRow, final int zRow, final T item) {
-        grid.get(xRow).get(zRow).add(item);
+        if (size == items.length) {
+            next = Arrays.copyOf(next, size * 2);
+            items = Arrays.copyOf(items, size * 2);
+        }
+        final int index = size++;
+        final int cell = xRow * zRows + zRow;
+        items[index] = item;
+        next[index] = NONE;
+        if (head[cell] == NONE) {
+            head[cell] = index;
+        } else {
+            next[tail[cell]] = index;
+        }
+        tail[cell] = index;
     }
 
-    public List<T> getRegion(final int xMin, final int zMin, final int xMax, final int zMax) {
-        final List<T> result = new ArrayList<T>();
+    @SuppressWarnings("unchecked")
+    public void visitRegion(final int xMin, final int zMin, final int xMax, final int zMax, final Visitor<? super T> visitor) {
         for (int x = xMin; x < xMax; ++x) {
             for (int z = zMin; z < zMax; ++z) {
-                result.addAll(grid.get(x).get(z));
+                for (int i = head[x * zRows + z]; i != NONE; i = next[i]) {
+                    visitor.visit((T) items[i]);
+                }
             }
         }
-        return result;
     }
 }
@@ -1,8 +1,6 @@
 package com.github.hoqhuuep.islandcraft.core.mosaic;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
 
@@ -12,6 +10,13 @@ public final class Poisson {
     private final double radius;
     private final double diameter;
     private final double maxQuadrance;
+    // Scratch space reused between candidates and sites to avoid garbage
+    private final RangeList rangeList;
+    private final NeighborVisitor neighborVisitor;
+    private Site[] sortSites;
+    private double[] sortAngles;
+    private double circumcenterX;
+    private double circumcenterZ;
 
     public Poisson(final double xSize, final double zSize, final double radius) {
         this.xSize = xSize;
@@ -19,6 +24,10 @@ public final class Poisson {
         this.radius = radius;
         diameter = 2.0 * radius;
         maxQuadrance = diameter * diameter;
+        rangeList = new RangeList();
+        neighborVisitor = new NeighborVisitor();
+        sortSites = new Site[16];
+        sortAngles = new double[16];
     }
 
     public List<Site> generate(final Random random) {
@@ -31,12 +40,9 @@ public final class Poisson {
         gridAdd(grid, firstSite);
         while (!candidates.isEmpty()) {
             final Site candidate = candidates.remove(candidates.size() - 1);
-            final RangeList rangeList = new RangeList();
-            for (final Site neighbor : gridNeighbors(grid, candidate)) {
-                if (neighbor != candidate) {
-                    subtractPoint(rangeList, candidate, neighbor);
-                }
-            }
+            rangeList.reset();
+            neighborVisitor.candidate = candidate;
+            gridNeighbors(grid, candidate, neighborVisitor);
             subtractEdges(rangeList, candidate);
             while (!rangeList.isEmpty()) {
                 final double angle = rangeList.random(random);
@@ -50,19 +56,21 @@ public final class Poisson {
         }
         firstSite.parent = sites.get(1);
         // Find Voronoi neighbors
-        for (final Site s : sites) {
+        for (int i = 0; i < sites.size(); ++i) {
+            final Site s = sites.get(i);
             if (s.polygon == null) {
                 continue;
             }
-            Collections.sort(s.suspectNeighbors, new AngleComparator(s.parent, s));
-            final Iterator<Site> iterator = s.suspectNeighbors.iterator();
-            Site pa = iterator.next();
-            A: while (iterator.hasNext()) {
-                final Site pb = iterator.next();
-                final Site cc = circumcenter(s, pa, pb);
-                final double cq = absq(AngleComparator.sub(s, cc));
-                for (final Site pc : s.suspectNeighbors) {
-                    if (pc != pa && pc != pb && absq(AngleComparator.sub(pc, cc)) < cq) {
+            final List<Site> suspectNeighbors = s.suspectNeighbors;
+            sortByAngle(s, suspectNeighbors);
+            Site pa = suspectNeighbors.get(0);
+            A: for (int j = 1; j < suspectNeighbors.size(); ++j) {
+                final Site pb = suspectNeighbors.get(j);
+                circumcenter(s, pa, pb);
+                final double cq = quadrance(s, circumcenterX, circumcenterZ);
+                for (int k = 0; k < suspectNeighbors.size(); ++k) {
+                    final Site pc = suspectNeighbors.get(k);
+                    if (pc != pa && pc != pb && quadrance(pc, circumcenterX, circumcenterZ) < cq) {
                         continue A;
                     }
                 }
@@ -70,37 +78,77 @@ public final class Poisson {
                 if (pb.polygon == null) {
                     pb.neighbors.add(s);
                 }
-                s.polygon.addPoint((int) cc.x, (int) cc.z);
+                s.polygon.addPoint((int) circumcenterX, (int) circumcenterZ);
                 pa = pb;
             }
             s.neighbors.add(s.parent);
             if (s.parent.polygon == null) {
                 s.parent.neighbors.add(s);
             }
-            final Site cc = circumcenter(s, pa, s.parent);
-            s.polygon.addPoint((int) cc.x, (int) cc.z);
+            circumcenter(s, pa, s.parent);
+            s.polygon.addPoint((int) circumcenterX, (int) circumcenterZ);
         }
         return sites;
     }
 
-    private Site circumcenter(final Site p1, final Site p2, final Site p3) {
-        final double q1 = absq(p1);
-        final double q2 = absq(p2);
-        final double q3 = absq(p3);
-        final Site s12 = AngleComparator.sub(p1, p2);
-        final Site s23 = AngleComparator.sub(p2, p3);
-        final Site s31 = AngleComparator.sub(p3, p1);
-        final double d = 0.5 / (p1.x * s23.z + p2.x * s31.z + p3.x * s12.z);
-        final double cx = (q1 * s23.z + q2 * s31.z + q3 * s12.z) * d;
-        final double cz = -(q1 * s23.x + q2 * s31.x + q3 * s12.x) * d;
-        return new Site(cx, cz);
+    /**
+     * Sorts the given sites by their angle around center, measured from the
+     * direction of center's parent. Stable, like Collections.sort, so the
+     * result is the same as it always was.
+     */
+    private void sortByAngle(final Site center, final List<Site> list) {
+        final int n = list.size();
+        if (sortSites.length < n) {
+            sortSites = new Site[n * 2];
+            sortAngles = new double[n * 2];
+        }
+        final double baseX = center.parent.x - center.x;
+        final double baseZ = center.parent.z - center.z;
+        for (int i = 0; i < n; ++i) {
+            final Site site = list.get(i);
+            final double x = site.x - center.x;
+            final double z = site.z - center.z;
+            final double cross = baseX * z - baseZ * x;
+            final double dot = baseX * x + baseZ * z;
+            final double angle = (Math.atan2(cross, dot) + (Math.PI * 2)) % (Math.PI * 2);
+            // Insertion sort, lists are short
+            int j = i - 1;
+            while (j >= 0 && Double.compare(sortAngles[j], angle) > 0) {
+                sortAngles[j + 1] = sortAngles[j];
+                sortSites[j + 1] = sortSites[j];
+                --j;
+            }
+            sortAngles[j + 1] = angle;
+            sortSites[j + 1] = site;
+        }
+        for (int i = 0; i < n; ++i) {
+            list.set(i, sortSites[i]);
+            sortSites[i] = null;
+        }
     }
 
-    private double absq(final Site p) {
-        return p.x * p.x + p.z * p.z;
+    private void circumcenter(final Site p1, final Site p2, final Site p3) {
+        final double q1 = p1.x * p1.x + p1.z * p1.z;
+        final double q2 = p2.x * p2.x + p2.z * p2.z;
+        final double q3 = p3.x * p3.x + p3.z * p3.z;
+        final double s12x = p1.x - p2.x;
+        final double s12z = p1.z - p2.z;
+        final double s23x = p2.x - p3.x;
+        final double s23z = p2.z - p3.z;
+        final double s31x = p3.x - p1.x;
+        final double s31z = p3.z - p1.z;
+        final double d = 0.5 / (p1.x * s23z + p2.x * s31z + p3.x * s12z);
+        circumcenterX = (q1 * s23z + q2 * s31z + q3 * s12z) * d;
+        circumcenterZ = -(q1 * s23x + q2 * s31x + q3 * s12x) * d;
     }
 
-    private List<Site> gridNeighbors(final Grid<Site> grid, final Site candidate) {
+    private static double quadrance(final Site p, final double x, final double z) {
+        final double dx = p.x - x;
+        final double dz = p.z - z;
+        return dx * dx + dz * dz;
+    }
+
+    private void gridNeighbors(final Grid<Site> grid, final Site candidate, final Grid.Visitor<Site> visitor) {
         int xMin = (int) Math.floor(candidate.x / diameter) - 1;
         int zMin = (int) Math.floor(candidate.z / diameter) - 1;
         int xMax = (int) Math.ceil(candidate.x / diameter) + 1;
@@ -117,7 +165,7 @@ public final class Poisson {
         if (zMax > zSize / diameter) {
             zMax = (int) Math.floor(zSize / diameter);
         }
-        return grid.getRegion(xMin, zMin, xMax, zMax);
+        grid.visitRegion(xMin, zMin, xMax, zMax, visitor);
     }
 
     private void gridAdd(final Grid<Site> grid, final Site site) {
@@ -178,4 +226,15 @@ public final class Poisson {
     private Site randomPoint(final double xSize, final double zSize, final Random random) {
         return new Site(random.nextDouble() * xSize, random.nextDouble() * zSize);
     }
+
+    private class NeighborVisitor implements Grid.Visitor<Site> {
+        private Site candidate;
+
+        @Override
+        public void visit(final Site neighbor) {
+            if (neighbor != candidate) {
+                subtractPoint(rangeList, candidate, neighbor);
+            }
+        }
+    }
 }
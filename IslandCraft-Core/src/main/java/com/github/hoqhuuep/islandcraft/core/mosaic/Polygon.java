@@ -0,0 +1,25 @@
+package com.github.hoqhuuep.islandcraft.core.mosaic;
+
+import java.util.Arrays;
+
+public final class Polygon {
+    public int npoints;
+    public int[] xpoints;
+    public int[] zpoints;
+
+    public Polygon() {
+        npoints = 0;
+        xpoints = new int[8];
+        zpoints = new int[8];
+    }
+
+    public void addPoint(final int x, final int z) {
+        if (npoints == xpoints.length) {
+            xpoints = Arrays.copyOf(xpoints, npoints * 2);
+            zpoints = Arrays.copyOf(zpoints, npoints * 2);
+        }
+        xpoints[npoints] = x;
+        zpoints[npoints] = z;
+        ++npoints;
+    }
+}
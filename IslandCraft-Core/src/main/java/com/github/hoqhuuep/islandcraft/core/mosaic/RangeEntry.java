@@ -1,11 +0,0 @@
-package com.github.hoqhuuep.islandcraft.core.mosaic;
-
-public final class RangeEntry {
-    public double min;
-    public double max;
-
-    public RangeEntry(final double min, final double max) {
-        this.min = min;
-        this.max = max;
-    }
-}
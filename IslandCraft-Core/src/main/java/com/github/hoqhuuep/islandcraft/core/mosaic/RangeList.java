@@ -1,17 +1,26 @@
 package com.github.hoqhuuep.islandcraft.core.mosaic;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Random;
 
 public final class RangeList {
     public static final double TWO_PI = Math.PI * 2;
     public static final double EPSILON = 1.0 / 256.0;
-    private final List<RangeEntry> ranges;
+    // Parallel arrays of [min, max) ranges, sorted and non-overlapping
+    private double[] mins;
+    private double[] maxs;
+    private int size;
 
     public RangeList() {
-        ranges = new ArrayList<RangeEntry>();
-        ranges.add(new RangeEntry(0, TWO_PI));
+        mins = new double[8];
+        maxs = new double[8];
+        reset();
+    }
+
+    public void reset() {
+        mins[0] = 0;
+        maxs[0] = TWO_PI;
+        size = 1;
     }
 
     public void subtract(final double min, final double max) {
@@ -26,22 +35,21 @@ public final class RangeList {
             subtract(min, TWO_PI);
             subtract(0, max - TWO_PI);
         } else {
-            for (int i = 0; i < ranges.size(); ++i) {
-                final RangeEntry range = ranges.get(i);
-                if (min < range.min + EPSILON) {
-                    if (max > range.max - EPSILON) {
-                        ranges.remove(i--);
-                    } else if (max > range.min) {
-                        range.min = max;
+            for (int i = 0; i < size; ++i) {
+                if (min < mins[i] + EPSILON) {
+                    if (max > maxs[i] - EPSILON) {
+                        remove(i--);
+                    } else if (max > mins[i]) {
+                        mins[i] = max;
                     } else {
                         break;
                     }
-                } else if (min < range.max) {
-                    if (max > range.max - EPSILON) {
-                        range.max = min;
+                } else if (min < maxs[i]) {
+                    if (max > maxs[i] - EPSILON) {
+                        maxs[i] = min;
                     } else {
-                        ranges.add(i++, new RangeEntry(range.min, min));
-                        range.min = max;
+                        insert(i, mins[i], min);
+                        mins[i + 1] = max;
                         break;
                     }
                 }
@@ -49,12 +57,30 @@ public final class RangeList {
         }
     }
 
+    private void remove(final int index) {
+        System.arraycopy(mins, index + 1, mins, index, size - index - 1);
+        System.arraycopy(maxs, index + 1, maxs, index, size - index - 1);
+        --size;
+    }
+
+    private void insert(final int index, final double min, final double max) {
+        if (size == mins.length) {
+            mins = Arrays.copyOf(mins, size * 2);
+            maxs = Arrays.copyOf(maxs, size * 2);
+        }
+        System.arraycopy(mins, index, mins, index + 1, size - index);
+        System.arraycopy(maxs, index, maxs, index + 1, size - index);
+        mins[index] = min;
+        maxs[index] = max;
+        ++size;
+    }
+
     public boolean isEmpty() {
-        return ranges.isEmpty();
+        return size == 0;
     }
 
     public double random(final Random random) {
-        final RangeEntry range = ranges.get(random.nextInt(ranges.size()));
-        return range.min + random.nextDouble() * (range.max - range.min);
+        final int i = random.nextInt(size);
+        return mins[i] + random.nextDouble() * (maxs[i] - mins[i]);
     }
 }
@@ -0,0 +1,121 @@
+package com.github.hoqhuuep.islandcraft.core.mosaic;
+
+import java.util.Arrays;
+
+/**
+ * Draws polygons directly into a byte array, following the same rules as
+ * Graphics2D.fillPolygon and drawPolygon: a pixel is filled if its center is
+ * inside the polygon, and outlines are 1 pixel wide lines through the
+ * vertices.
+ */
+public final class Rasterizer {
+    // Java2D nudges integer vertices by a quarter pixel when normalizing
+    private static final double NUDGE = 0.25;
+    private final int xSize;
+    private final int zSize;
+    private final byte[] pixels;
+    private double[] crossings;
+
+    public Rasterizer(final int xSize, final int zSize, final byte background) {
+        this.xSize = xSize;
+        this.zSize = zSize;
+        pixels = new byte[xSize * zSize];
+        Arrays.fill(pixels, background);
+        crossings = new double[8];
+    }
+
+    public void fill(final Polygon polygon, final byte value) {
+        final int n = polygon.npoints;
+        if (n < 3) {
+            return;
+        }
+        final int[] xs = polygon.xpoints;
+        final int[] zs = polygon.zpoints;
+        if (crossings.length < n) {
+            crossings = new double[n];
+        }
+        int zMin = zs[0];
+        int zMax = zs[0];
+        for (int i = 1; i < n; ++i) {
+            zMin = Math.min(zMin, zs[i]);
+            zMax = Math.max(zMax, zs[i]);
+        }
+        // Rows whose center lies in [zMin, zMax)
+        final int rowMin = Math.max(0, zMin);
+        final int rowMax = Math.min(zSize - 1, zMax - 1);
+        for (int z = rowMin; z <= rowMax; ++z) {
+            final double center = z + 0.5 - NUDGE;
+            int count = 0;
+            for (int i = 0, j = n - 1; i < n; j = i++) {
+                final int z0 = zs[j];
+                final int z1 = zs[i];
+                if ((z0 <= center) != (z1 <= center)) {
+                    final int x0 = xs[j];
+                    final int x1 = xs[i];
+                    crossings[count++] = x0 + NUDGE + (center - z0) * (x1 - x0) / (z1 - z0);
+                }
+            }
+            // Insertion sort, there are almost always exactly 2 crossings
+            for (int i = 1; i < count; ++i) {
+                final double crossing = crossings[i];
+                int k = i - 1;
+                while (k >= 0 && crossings[k] > crossing) {
+                    crossings[k + 1] = crossings[k];
+                    --k;
+                }
+                crossings[k + 1] = crossing;
+            }
+            // Even-odd rule, pixel centers in [left, right) are inside
+            final int offset = z * xSize;
+            for (int i = 0; i + 1 < count; i += 2) {
+                final int xMin = Math.max(0, (int) Math.ceil(crossings[i] - 0.5));
+                final int xMax = Math.min(xSize, (int) Math.ceil(crossings[i + 1] - 0.5));
+                if (xMin < xMax) {
+                    Arrays.fill(pixels, offset + xMin, offset + xMax, value);
+                }
+            }
+        }
+    }
+
+    public void draw(final Polygon polygon, final byte value) {
+        final int n = polygon.npoints;
+        if (n == 0) {
+            return;
+        }
+        final int[] xs = polygon.xpoints;
+        final int[] zs = polygon.zpoints;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            line(xs[j], zs[j], xs[i], zs[i], value);
+        }
+    }
+
+    private void line(int x0, int z0, final int x1, final int z1, final byte value) {
+        // Bresenham
+        final int dx = Math.abs(x1 - x0);
+        final int dz = -Math.abs(z1 - z0);
+        final int sx = x0 < x1 ? 1 : -1;
+        final int sz = z0 < z1 ? 1 : -1;
+        int error = dx + dz;
+        while (true) {
+            if (x0 >= 0 && x0 < xSize && z0 >= 0 && z0 < zSize) {
+                pixels[z0 * xSize + x0] = value;
+            }
+            if (x0 == x1 && z0 == z1) {
+                return;
+            }
+            final int e2 = 2 * error;
+            if (e2 >= dz) {
+                error += dz;
+                x0 += sx;
+            }
+            if (e2 <= dx) {
+                error += dx;
+                z0 += sz;
+            }
+        }
+    }
+
+    public byte[] getPixels() {
+        return pixels;
+    }
+}
@@ -1,6 +1,5 @@
 package com.github.hoqhuuep.islandcraft.core.mosaic;
 
-import java.awt.Polygon;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -12,9 +12,11 @@ import net.minecraft.server.v1_5_R2.WorldChunkManager;
 
 import com.github.hoqhuuep.islandcraft.api.ICBiome;
 import com.github.hoqhuuep.islandcraft.nms.BiomeGenerator;
+import com.github.hoqhuuep.islandcraft.nms.BiomeTable;
 
 public class CustomWorldChunkManager extends WorldChunkManager {
     private static final Map<ICBiome, BiomeBase> biomeMap = new EnumMap<ICBiome, BiomeBase>(ICBiome.class);
+    private static final BiomeTable<BiomeBase> biomeTable;
 
     static {
         biomeMap.put(ICBiome.BEACH, BiomeBase.BEACH);
@@ -78,6 +80,7 @@ public class CustomWorldChunkManager extends WorldChunkManager {
         biomeMap.put(ICBiome.TAIGA, BiomeBase.TAIGA);
         biomeMap.put(ICBiome.TAIGA_HILLS, BiomeBase.TAIGA_HILLS);
         biomeMap.put(ICBiome.TAIGA_M, BiomeBase.TAIGA_HILLS);
+        biomeTable = new BiomeTable<BiomeBase>(biomeMap);
     }
 
     private final BiomeCache biomeCache;
@@ -151,12 +154,7 @@ public class CustomWorldChunkManager extends WorldChunkManager {
             result = new BiomeBase[xSize * zSize];
         }
         // 1 in every 4
-        for (int i = 0; i < xSize * zSize; ++i) {
-            final int x = (xMin + (i % xSize)) << 2;
-            final int z = (zMin + (i / xSize)) << 2;
-            final ICBiome biome = biomeGenerator.generateBiome(x, z);
-            result[i] = biomeMap.get(biome);
-        }
+        biomeTable.fillSamples(biomeGenerator, xMin << 2, zMin << 2, xSize, zSize, 4, result);
         return result;
     }
 
@@ -183,17 +181,13 @@ public class CustomWorldChunkManager extends WorldChunkManager {
                 return result;
             }
             // This only happens in getWetness above
-            final ICBiome[] temp = biomeGenerator.generateChunkBiomes(xMin, zMin);
-            for (int i = 0; i < xSize * zSize; ++i) {
-                result[i] = biomeMap.get(temp[i]);
-            }
+            biomeTable.fillChunk(biomeGenerator, xMin, zMin, result);
             return result;
         }
         // In reality this never happens...
         for (int x = 0; x < xSize; ++x) {
             for (int z = 0; z < zSize; ++z) {
-                final ICBiome temp = biomeGenerator.generateBiome(xMin + x, zMin + z);
-                result[x + z * xSize] = biomeMap.get(temp);
+                result[x + z * xSize] = biomeTable.get(biomeGenerator.generateBiomeOrdinal(xMin + x, zMin + z));
             }
         }
         return result;
@@ -212,15 +206,8 @@ public class CustomWorldChunkManager extends WorldChunkManager {
         final int zMax = (z + radius) >> 2;
         final int xSize = xMax - xMin + 1;
         final int zSize = zMax - zMin + 1;
-        // Generate biome's
-        final BiomeBase[] biomes = getBiomes(null, xMin, zMin, xSize, zSize);
-        // Make sure all biomes are allowed
-        for (int i = 0; i < xSize * zSize; i++) {
-            if (!allowedBiomes.contains(biomes[i])) {
-                return false;
-            }
-        }
-        return true;
+        // Check whole islands and tiles at once where possible
+        return biomeGenerator.containsOnlyBiomes(xMin << 2, zMin << 2, xSize, zSize, 4, biomeTable.mask(allowedBiomes));
     }
 
     /**
@@ -237,14 +224,18 @@ public class CustomWorldChunkManager extends WorldChunkManager {
         final int zMax = (z + radius) >> 2;
         final int xSize = xMax - xMin + 1;
         final int zSize = zMax - zMin + 1;
-        // Generate biome's
-        final BiomeBase[] biomes = getBiomes(null, xMin, zMin, xSize, zSize);
+        // Find matching samples, checking whole islands and tiles at once where
+        // possible
+        final boolean[] matches = new boolean[xSize * zSize];
+        if (biomeGenerator.findBiomes(xMin << 2, zMin << 2, xSize, zSize, 4, biomeTable.mask(allowedBiomes), matches) == 0) {
+            return null;
+        }
         ChunkPosition result = null;
         int count = 0;
         for (int i = 0; i < xSize * zSize; i++) {
             final int xPosition = (xMin + (i % xSize)) << 2;
             final int zPosition = (zMin + (i / xSize)) << 2;
-            if (allowedBiomes.contains(biomes[i]) && (result == null || random.nextInt(count + 1) == 0)) {
+            if (matches[i] && (result == null || random.nextInt(count + 1) == 0)) {
                 result = new ChunkPosition(xPosition, 0, zPosition);
                 count++;
             }
@@ -15,6 +15,41 @@ public abstract class BiomeGenerator {
      */
     public abstract ICBiome[] generateChunkBiomes(int x, int z);
 
+    /**
+     * Same as generateChunkBiomes(x, z) but fills the given array instead of
+     * returning a new one. Override to avoid allocating an array per chunk.
+     * 
+     * @param x
+     *            X-coordinate of the chunk
+     * @param z
+     *            Z-coordinate of the chunk
+     * @param result
+     *            Biome[256] to be filled with the biomes for each location in
+     *            the chunk
+     */
+    public void generateChunkBiomes(final int x, final int z, final ICBiome[] result) {
+        System.arraycopy(generateChunkBiomes(x, z), 0, result, 0, 256);
+    }
+
+    /**
+     * Same as generateChunkBiomes(x, z, result) but fills the given array with
+     * ICBiome ordinals. Override to avoid ICBiome[] altogether.
+     * 
+     * @param x
+     *            X-coordinate of the chunk
+     * @param z
+     *            Z-coordinate of the chunk
+     * @param result
+     *            byte[256] to be filled with the ordinal of the biome for each
+     *            location in the chunk
+     */
+    public void generateChunkOrdinals(final int x, final int z, final byte[] result) {
+        final ICBiome[] biomes = generateChunkBiomes(x, z);
+        for (int i = 0; i < 256; ++i) {
+            result[i] = (byte) biomes[i].ordinal();
+        }
+    }
+
     /**
      * Determines which biome should used for world generation at the given
      * coordinates.
@@ -27,6 +62,90 @@ public abstract class BiomeGenerator {
      */
     public abstract ICBiome generateBiome(int x, int z);
 
+    /**
+     * Same as generateBiome(x, z) but returns the ordinal of the biome.
+     * 
+     * @param x
+     *            X-coordinate for the biome
+     * @param z
+     *            Z-coordinate for the biome
+     * @return ordinal of the biome for the location
+     */
+    public int generateBiomeOrdinal(final int x, final int z) {
+        return generateBiome(x, z).ordinal();
+    }
+
+    /**
+     * Fills the given array with the ordinals of the biomes at a grid of
+     * evenly spaced sample points. Override to answer the whole grid at once
+     * rather than point by point.
+     * 
+     * @param xMin
+     *            X-coordinate of the first sample point
+     * @param zMin
+     *            Z-coordinate of the first sample point
+     * @param xSize
+     *            number of sample points along the x-axis
+     * @param zSize
+     *            number of sample points along the z-axis
+     * @param scale
+     *            distance between sample points
+     * @param result
+     *            byte[xSize * zSize] to be filled with the ordinal of the biome
+     *            at (xMin + x * scale, zMin + z * scale) at index [x + z * xSize]
+     */
+    public void generateBiomeSamples(final int xMin, final int zMin, final int xSize, final int zSize, final int scale, final byte[] result) {
+        for (int i = 0; i < xSize * zSize; ++i) {
+            result[i] = (byte) generateBiomeOrdinal(xMin + (i % xSize) * scale, zMin + (i / xSize) * scale);
+        }
+    }
+
+    /**
+     * Returns true if every sample point in the grid described by
+     * generateBiomeSamples has one of the given biomes. Override to answer
+     * without generating every sample point.
+     * 
+     * @param biomes
+     *            mask with bit (1L << ordinal) set for each allowed ICBiome
+     * @return true if all sample points have one of the given biomes
+     */
+    public boolean containsOnlyBiomes(final int xMin, final int zMin, final int xSize, final int zSize, final int scale, final long biomes) {
+        final byte[] ordinals = new byte[xSize * zSize];
+        generateBiomeSamples(xMin, zMin, xSize, zSize, scale, ordinals);
+        for (final byte ordinal : ordinals) {
+            if ((biomes & 1L << ordinal) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Marks which sample points in the grid described by generateBiomeSamples
+     * have one of the given biomes. Override to answer without generating
+     * every sample point.
+     * 
+     * @param biomes
+     *            mask with bit (1L << ordinal) set for each ICBiome to find
+     * @param result
+     *            boolean[xSize * zSize] to be filled such that index
+     *            [x + z * xSize] is true if the sample point has one of the
+     *            given biomes
+     * @return the number of sample points which have one of the given biomes
+     */
+    public int findBiomes(final int xMin, final int zMin, final int xSize, final int zSize, final int scale, final long biomes, final boolean[] result) {
+        final byte[] ordinals = new byte[xSize * zSize];
+        generateBiomeSamples(xMin, zMin, xSize, zSize, scale, ordinals);
+        int count = 0;
+        for (int i = 0; i < ordinals.length; ++i) {
+            result[i] = (biomes & 1L << ordinals[i]) != 0;
+            if (result[i]) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
     /**
      * Called by the server every tick. Can be used to occasionally clean up old
      * data from a cache if needed.
@@ -0,0 +1,94 @@
+package com.github.hoqhuuep.islandcraft.nms;
+
+import java.util.List;
+import java.util.Map;
+
+import com.github.hoqhuuep.islandcraft.api.ICBiome;
+
+/**
+ * Translates ICBiome ordinals into server biomes through a plain array, so
+ * each NMS version only has to provide the mapping.
+ * 
+ * @param <T>
+ *            the server's biome class
+ */
+public final class BiomeTable<T> {
+    private static final int BLOCKS_PER_CHUNK = 256;
+    private final Object[] table;
+    // Chunks are generated on more than one thread
+    private final ThreadLocal<byte[]> chunkBuffer = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[BLOCKS_PER_CHUNK];
+        }
+    };
+    private final ThreadLocal<byte[]> sampleBuffer = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[BLOCKS_PER_CHUNK];
+        }
+    };
+
+    public BiomeTable(final Map<ICBiome, T> biomeMap) {
+        final ICBiome[] biomes = ICBiome.values();
+        table = new Object[biomes.length];
+        for (int i = 0; i < biomes.length; ++i) {
+            table[i] = biomeMap.get(biomes[i]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(final int ordinal) {
+        return (T) table[ordinal];
+    }
+
+    public T get(final ICBiome biome) {
+        return get(biome.ordinal());
+    }
+
+    /**
+     * Fills result with the server biomes for the 16x16 chunk at x, z (measured
+     * in blocks) without going through ICBiome[].
+     */
+    public void fillChunk(final BiomeGenerator biomeGenerator, final int x, final int z, final T[] result) {
+        final byte[] ordinals = chunkBuffer.get();
+        biomeGenerator.generateChunkOrdinals(x, z, ordinals);
+        translate(ordinals, result, BLOCKS_PER_CHUNK);
+    }
+
+    /**
+     * Fills result with the server biomes at a grid of sample points, see
+     * BiomeGenerator.generateBiomeSamples.
+     */
+    public void fillSamples(final BiomeGenerator biomeGenerator, final int xMin, final int zMin, final int xSize, final int zSize, final int scale, final T[] result) {
+        final int length = xSize * zSize;
+        byte[] ordinals = sampleBuffer.get();
+        if (ordinals.length < length) {
+            ordinals = new byte[length];
+            sampleBuffer.set(ordinals);
+        }
+        biomeGenerator.generateBiomeSamples(xMin, zMin, xSize, zSize, scale, ordinals);
+        translate(ordinals, result, length);
+    }
+
+    /**
+     * Returns a mask with bit (1L << ordinal) set for each ICBiome which
+     * translates to one of the given server biomes, for use with
+     * BiomeGenerator.containsOnlyBiomes and BiomeGenerator.findBiomes.
+     */
+    public long mask(final List<?> biomes) {
+        long mask = 0;
+        for (int i = 0; i < table.length; ++i) {
+            if (biomes.contains(table[i])) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    public void translate(final byte[] ordinals, final T[] result, final int length) {
+        for (int i = 0; i < length; ++i) {
+            result[i] = get(ordinals[i]);
+        }
+    }
+}